@@ -0,0 +1,87 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.service.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * As duas direções de LancamentoResource.converter. A busca do usuário na
+ * conversão DTO -> entidade é respondida em memória, para medir só o mapeamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversaoLancamentoBenchmark {
+
+    private LancamentoResource resource;
+    private Lancamento lancamento;
+    private LancamentoDTO dto;
+
+    @Setup
+    public void preparar() {
+        Usuario usuario = Usuario.builder().id(1l).nome("usuario").email("usuario@email.com").build();
+        resource = new LancamentoResource(null, new UsuarioEmMemoria(usuario), null, null, null);
+
+        lancamento = Lancamento.builder()
+                .id(10l)
+                .descricao("lancamento benchmark")
+                .ano(2022)
+                .mes(5)
+                .valor(Dinheiro.parse("150"))
+                .tipo(TipoLancamento.DESPESA)
+                .status(StatusLancamento.PENDENTE)
+                .usuario(usuario)
+                .build();
+        dto = resource.converter(lancamento);
+    }
+
+    @Benchmark
+    public LancamentoDTO entidadeParaDto() {
+        return resource.converter(lancamento);
+    }
+
+    @Benchmark
+    public Lancamento dtoParaEntidade() {
+        return resource.converter(dto);
+    }
+
+    private static class UsuarioEmMemoria implements UsuarioService {
+
+        private final Optional<Usuario> usuario;
+
+        UsuarioEmMemoria(Usuario usuario) {
+            this.usuario = Optional.of(usuario);
+        }
+
+        @Override
+        public Optional<Usuario> obterPorId(Long id) {
+            return usuario;
+        }
+
+        @Override
+        public Usuario autenticar(String email, String senha) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Usuario salvarUsuario(Usuario usuario) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void validarEmail(String email) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.zetta.minhasfinancas.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.service.DadosToken;
+import com.zetta.minhasfinancas.service.impl.JwtServiceImpl;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de gerar e validar o token JWT. O filtro chama isTokenValido e
+ * obterLoginUsuario em toda requisição; validarToken é o caminho com cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtServiceImpl service;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        service = new JwtServiceImpl(Caffeine.newBuilder().<String, DadosToken>build());
+        ReflectionTestUtils.setField(service, "expiration", "30");
+        ReflectionTestUtils.setField(service, "signatureKey", "d2hlbiB0aGUgaW1wb3N0ZXIgaXMgc3Vz");
+
+        usuario = new Usuario();
+        usuario.setNome("usuario");
+        usuario.setEmail("usuario@email.com");
+        token = service.gerarToken(usuario);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return service.gerarToken(usuario);
+    }
+
+    @Benchmark
+    public Claims obterClaims() {
+        return service.obterClaims(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValido() {
+        return service.isTokenValido(token);
+    }
+
+    @Benchmark
+    public Optional<DadosToken> validarTokenComCache() {
+        return service.validarToken(token);
+    }
+}
@@ -0,0 +1,93 @@
+package com.zetta.minhasfinancas.benchmark;
+
+import com.zetta.minhasfinancas.MinhasfinancasApplication;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.LivroCaixaService;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saldo do usuário contra o H2 em memória (perfil test) com 1k, 100k e 1M
+ * lançamentos. "projecao" é o caminho padrão (saldo_usuario); "livroCaixa" é
+ * o cálculo em memória (livro-caixa.habilitado), já carregado depois do
+ * aquecimento; "agregacao" são as duas somas sobre lancamento que o saldo
+ * fazia antes, como referência.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SaldoBenchmark {
+
+    private static final String INSERIR_LANCAMENTOS =
+            " insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro) "
+            + " select x, 'lancamento ' || x, mod(x, 12) + 1, 2018 + mod(x, 5), mod(x, 1000) + 1, "
+            + " case when mod(x, 3) = 0 then 'DESPESA' else 'RECEITA' end, "
+            + " case when mod(x, 2) = 0 then 'EFETIVADO' else 'PENDENTE' end, ?, current_date "
+            + " from system_range(1, ?) ";
+
+    @Param({ "1000", "100000", "1000000" })
+    private int linhas;
+
+    private ConfigurableApplicationContext contexto;
+    private LancamentoService lancamentoService;
+    private LancamentoRepository lancamentoRepository;
+    private LivroCaixaService livroCaixaService;
+    private Long idUsuario;
+
+    @Setup
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+
+        Usuario usuario = contexto.getBean(UsuarioRepository.class)
+                .save(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+        idUsuario = usuario.getId();
+
+        contexto.getBean(JdbcTemplate.class).update(INSERIR_LANCAMENTOS, idUsuario, linhas);
+        contexto.getBean(SaldoUsuarioService.class).reconstruirSaldo(idUsuario);
+
+        lancamentoService = contexto.getBean(LancamentoService.class);
+        lancamentoRepository = contexto.getBean(LancamentoRepository.class);
+        livroCaixaService = contexto.getBean(LivroCaixaService.class);
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Dinheiro projecao() {
+        return lancamentoService.obterSaldoPorUsuario(idUsuario);
+    }
+
+    @Benchmark
+    public Dinheiro livroCaixa() {
+        return livroCaixaService.obterSaldo(idUsuario);
+    }
+
+    @Benchmark
+    public Dinheiro agregacao() {
+        Long receitas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(
+                idUsuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+        Long despesas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(
+                idUsuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+        return Dinheiro.deCentavos(receitas - despesas);
+    }
+}
@@ -0,0 +1,38 @@
+package com.zetta.minhasfinancas.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conferência da senha no login (UsuarioServiceImpl.autenticar), com o
+ * mesmo encoder configurado em SenhaConfiguration, para cada valor de
+ * senha.bcrypt.forca candidato. senha.executor.threads dividido pelo tempo
+ * por hash dá a vazão máxima de logins por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SenhaBenchmark {
+
+    @Param({"10", "12"})
+    private int forca;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(forca);
+        hash = encoder.encode("senha");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("senha", hash);
+    }
+}
@@ -0,0 +1,47 @@
+package com.zetta.minhasfinancas.benchmark;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.service.impl.LancamentoServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LancamentoServiceImpl.validar, que roda em toda inclusão, alteração e em
+ * cada linha da importação em lote. Não usa o repositório.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoLancamentoBenchmark {
+
+    private LancamentoServiceImpl service;
+    private Lancamento lancamento;
+
+    @Setup
+    public void preparar() {
+        service = new LancamentoServiceImpl(null, null, null, null, null, null);
+        lancamento = Lancamento.builder()
+                .descricao("lancamento benchmark")
+                .ano(2022)
+                .mes(5)
+                .valor(Dinheiro.parse("150"))
+                .tipo(TipoLancamento.DESPESA)
+                .status(StatusLancamento.PENDENTE)
+                .usuario(Usuario.builder().id(1l).build())
+                .build();
+    }
+
+    @Benchmark
+    public Lancamento validar() {
+        service.validar(lancamento);
+        return lancamento;
+    }
+}
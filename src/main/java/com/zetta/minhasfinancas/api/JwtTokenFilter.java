@@ -1,7 +1,10 @@
 package com.zetta.minhasfinancas.api;
 
+import com.zetta.minhasfinancas.service.DadosToken;
 import com.zetta.minhasfinancas.service.JwtService;
 import com.zetta.minhasfinancas.service.impl.SecurityUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,18 +16,31 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
 public class JwtTokenFilter extends OncePerRequestFilter {
 
     private JwtService jwtService;
     private SecurityUserDetailsService userDetailsService;
+    private Timer tempoToken;
+    private Timer tempoUsuario;
 
     public JwtTokenFilter(
             JwtService jwtService,
-            SecurityUserDetailsService userDetailsService
+            SecurityUserDetailsService userDetailsService,
+            MeterRegistry registry
     ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tempoToken = tempoFiltro(registry, "token");
+        this.tempoUsuario = tempoFiltro(registry, "usuario");
+    }
+
+    private static Timer tempoFiltro(MeterRegistry registry, String etapa) {
+        return Timer.builder("financas.autenticacao.filtro")
+                .description("Tempo gasto pelo JwtTokenFilter em cada etapa")
+                .tag("etapa", etapa)
+                .register(registry);
     }
 
     @Override
@@ -37,11 +53,11 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         String authorization = request.getHeader("Authorization");
         if(authorization != null && authorization.startsWith("Bearer")) {
             String token = authorization.split(" ")[1];
-            boolean isTokenValid = jwtService.isTokenValido(token);
+            Optional<DadosToken> dadosToken = tempoToken.record(() -> jwtService.validarToken(token));
 
-            if(isTokenValid) {
-                String login = jwtService.obterLoginUsuario(token);
-                UserDetails usuarioAutenticado = userDetailsService.loadUserByUsername(login);
+            if(dadosToken.isPresent()) {
+                String login = dadosToken.get().getLogin();
+                UserDetails usuarioAutenticado = tempoUsuario.record(() -> userDetailsService.loadUserByUsername(login));
 
                 UsernamePasswordAuthenticationToken user =
                         new UsernamePasswordAuthenticationToken(
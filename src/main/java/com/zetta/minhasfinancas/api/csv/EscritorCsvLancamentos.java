@@ -0,0 +1,56 @@
+package com.zetta.minhasfinancas.api.csv;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escreve lançamentos em CSV separado por ';', no mesmo formato aceito pelo
+ * LeitorCsvLancamentos (as colunas id e status são ignoradas na importação).
+ */
+public class EscritorCsvLancamentos {
+
+    private static final char SEPARADOR = ';';
+
+    private final Writer writer;
+
+    public EscritorCsvLancamentos(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void escreverCabecalho() throws IOException {
+        writer.write("id;descricao;mes;ano;valor;tipo;status\n");
+    }
+
+    public void escrever(LancamentoDTO lancamento) throws IOException {
+        writer.write(String.valueOf(lancamento.getId()));
+        writer.write(SEPARADOR);
+        escreverTexto(lancamento.getDescricao());
+        writer.write(SEPARADOR);
+        writer.write(String.valueOf(lancamento.getMes()));
+        writer.write(SEPARADOR);
+        writer.write(String.valueOf(lancamento.getAno()));
+        writer.write(SEPARADOR);
+        writer.write(lancamento.getValor() == null ? "" : lancamento.getValor().toString());
+        writer.write(SEPARADOR);
+        writer.write(lancamento.getTipo() == null ? "" : lancamento.getTipo());
+        writer.write(SEPARADOR);
+        writer.write(lancamento.getStatus() == null ? "" : lancamento.getStatus());
+        writer.write('\n');
+    }
+
+    private void escreverTexto(String texto) throws IOException {
+        if (texto == null) {
+            return;
+        }
+        if (texto.indexOf(SEPARADOR) < 0 && texto.indexOf('"') < 0
+                && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            writer.write(texto);
+            return;
+        }
+        writer.write('"');
+        writer.write(texto.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
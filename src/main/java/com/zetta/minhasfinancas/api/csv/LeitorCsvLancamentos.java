@@ -0,0 +1,142 @@
+package com.zetta.minhasfinancas.api.csv;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê lançamentos de um CSV com cabeçalho. As colunas descricao, mes, ano,
+ * valor e tipo são obrigatórias e podem vir em qualquer ordem; o separador
+ * é ';' se o cabeçalho tiver ';', senão ','. Campos entre aspas podem conter
+ * o separador e quebras de linha ("" representa uma aspa). Valores que não puderem ser lidos
+ * ficam nulos e são recusados na validação do lançamento.
+ */
+public final class LeitorCsvLancamentos {
+
+    private LeitorCsvLancamentos() {
+    }
+
+    public static List<LancamentoDTO> ler(Reader reader) throws IOException {
+        BufferedReader linhas = new BufferedReader(reader);
+        List<LancamentoDTO> lancamentos = new ArrayList<>();
+
+        String cabecalho = linhas.readLine();
+        if (cabecalho == null) {
+            return lancamentos;
+        }
+        if (cabecalho.startsWith("\uFEFF")) {
+            cabecalho = cabecalho.substring(1);
+        }
+
+        char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        List<String> colunas = dividir(cabecalho, linhas, separador);
+        int descricao = coluna(colunas, "descricao");
+        int mes = coluna(colunas, "mes");
+        int ano = coluna(colunas, "ano");
+        int valor = coluna(colunas, "valor");
+        int tipo = coluna(colunas, "tipo");
+
+        String linha;
+        while ((linha = linhas.readLine()) != null) {
+            if (linha.trim().isEmpty()) {
+                continue;
+            }
+            List<String> campos = dividir(linha, linhas, separador);
+            lancamentos.add(LancamentoDTO.builder()
+                    .descricao(campo(campos, descricao))
+                    .mes(inteiro(campo(campos, mes)))
+                    .ano(inteiro(campo(campos, ano)))
+                    .valor(decimal(campo(campos, valor)))
+                    .tipo(campo(campos, tipo))
+                    .build());
+        }
+        return lancamentos;
+    }
+
+    private static int coluna(List<String> colunas, String nome) {
+        for (int i = 0; i < colunas.size(); i++) {
+            if (colunas.get(i).trim().equalsIgnoreCase(nome)) {
+                return i;
+            }
+        }
+        throw new RegraNegocioException("O cabeçalho do CSV deve ter as colunas descricao, mes, ano, valor e tipo.");
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        if (indice >= campos.size()) {
+            return null;
+        }
+        String campo = campos.get(indice).trim();
+        return campo.isEmpty() ? null : campo;
+    }
+
+    private static Integer inteiro(String campo) {
+        try {
+            return campo == null ? null : Integer.valueOf(campo);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Dinheiro decimal(String campo) {
+        if (campo == null) {
+            return null;
+        }
+        if (campo.indexOf(',') >= 0 && campo.indexOf('.') < 0) {
+            campo = campo.replace(',', '.');
+        }
+        try {
+            return Dinheiro.parse(campo);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Divide o registro que começa em linha. Um campo entre aspas que não
+     * fecha na linha continua na seguinte, com a quebra de linha no valor;
+     * se o arquivo acabar antes, fica com o que foi lido.
+     */
+    private static List<String> dividir(String linha, BufferedReader linhas, char separador) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        while (linha != null) {
+            for (int i = 0; i < linha.length(); i++) {
+                char c = linha.charAt(i);
+                if (entreAspas) {
+                    if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreAspas = false;
+                    } else {
+                        atual.append(c);
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == separador) {
+                    campos.add(atual.toString());
+                    atual.setLength(0);
+                } else {
+                    atual.append(c);
+                }
+            }
+            if (!entreAspas) {
+                break;
+            }
+            linha = linhas.readLine();
+            if (linha != null) {
+                atual.append('\n');
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
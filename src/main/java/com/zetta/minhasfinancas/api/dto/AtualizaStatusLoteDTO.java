@@ -0,0 +1,26 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Corpo de PUT /api/lancamentos/atualiza-status: o novo status e os ids dos
+ * lançamentos ou, sem ids, um filtro por ano, mês e tipo. O usuário é sempre
+ * o autenticado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtualizaStatusLoteDTO {
+
+    private String status;
+    private List<Long> ids;
+    private Integer ano;
+    private Integer mes;
+    private String tipo;
+}
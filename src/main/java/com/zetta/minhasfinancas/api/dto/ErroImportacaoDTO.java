@@ -0,0 +1,18 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErroImportacaoDTO {
+
+    /**
+     * Posição do lançamento no lote, começando em 1: o índice no array JSON
+     * ou a linha de dados do CSV (sem contar o cabeçalho e linhas em branco).
+     */
+    private int linha;
+    private String mensagem;
+}
@@ -0,0 +1,23 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento "lancamento" de GET /api/usuarios/{id}/eventos: o lançamento
+ * alterado (na mudança de status só vêm os campos que afetam o saldo) e o
+ * saldo do usuário depois do commit.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoLancamentoDTO {
+
+    private LancamentoDTO lancamento;
+    private boolean removido;
+    private Dinheiro saldo;
+}
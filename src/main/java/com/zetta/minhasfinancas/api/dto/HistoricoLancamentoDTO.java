@@ -0,0 +1,28 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item de GET /api/lancamentos/{id}/historico: o estado do lançamento depois
+ * de uma escrita (na mudança de status a descrição vem nula), quem a fez e
+ * quando foi registrada.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricoLancamentoDTO {
+
+    private LancamentoDTO lancamento;
+    private boolean removido;
+    private Long autor;
+    /** ISO, no formato aceito pelo parâmetro ate do saldo reconstruído. */
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private LocalDateTime registradoEm;
+}
@@ -1,12 +1,13 @@
 package com.zetta.minhasfinancas.api.dto;
 
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,8 +18,19 @@ public class LancamentoDTO {
     private String descricao;
     private Integer mes;
     private Integer ano;
-    private BigDecimal valor;
+    private Dinheiro valor;
     private Long usuario;
     private String tipo;
     private String status;
+
+    /**
+     * Usado nas consultas JPQL (select new ...) que montam o DTO direto do
+     * result set, sem carregar a entidade nem o usuário.
+     */
+    public LancamentoDTO(Long id, String descricao, Integer mes, Integer ano, Dinheiro valor,
+                         Long usuario, TipoLancamento tipo, StatusLancamento status) {
+        this(id, descricao, mes, ano, valor, usuario,
+                tipo == null ? null : tipo.name(),
+                status == null ? null : status.name());
+    }
 }
@@ -0,0 +1,20 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaLancamentoDTO {
+
+    private List<LancamentoDTO> itens;
+
+    /**
+     * Cursor opaco para buscar a próxima página; nulo na última.
+     */
+    private String next;
+}
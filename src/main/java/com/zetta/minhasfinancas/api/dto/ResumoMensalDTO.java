@@ -0,0 +1,21 @@
+package com.zetta.minhasfinancas.api.dto;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensalDTO {
+
+    private Integer ano;
+    private Integer mes;
+    private String tipo;
+    private String status;
+    private Long quantidade;
+    private Dinheiro total;
+}
@@ -0,0 +1,49 @@
+package com.zetta.minhasfinancas.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+import java.io.IOException;
+
+/**
+ * Dinheiro no JSON: escrito como número com duas casas (10.50), como era o
+ * BigDecimal, e lido de número ou texto ("10.50") direto dos caracteres do
+ * parser, sem passar por BigDecimal nem por double.
+ */
+public final class DinheiroJson {
+
+    private DinheiroJson() {
+    }
+
+    public static class Serializador extends JsonSerializer<Dinheiro> {
+
+        @Override
+        public void serialize(Dinheiro valor, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+            char[] texto = new char[Dinheiro.TAMANHO_MAXIMO_TEXTO];
+            gerador.writeNumber(texto, 0, valor.escrever(texto, 0));
+        }
+    }
+
+    public static class Desserializador extends JsonDeserializer<Dinheiro> {
+
+        @Override
+        public Dinheiro deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Dinheiro) contexto.handleUnexpectedToken(Dinheiro.class, parser);
+            }
+            try {
+                return Dinheiro.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } catch (NumberFormatException e) {
+                throw contexto.weirdStringException(parser.getText(), Dinheiro.class, e.getMessage());
+            }
+        }
+    }
+}
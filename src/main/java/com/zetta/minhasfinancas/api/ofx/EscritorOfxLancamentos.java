@@ -0,0 +1,71 @@
+package com.zetta.minhasfinancas.api.ofx;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escreve um extrato OFX 1.02 (SGML) com os lançamentos do usuário, um
+ * STMTTRN por lançamento. Lançamentos cancelados ficam de fora. Como o
+ * extrato é escrito enquanto a consulta avança, o período (DTSTART/DTEND)
+ * não é informado. A data de cada transação é o primeiro dia do mês do
+ * lançamento, que é a única data que ele tem.
+ */
+public class EscritorOfxLancamentos {
+
+    private final Writer writer;
+
+    public EscritorOfxLancamentos(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void escreverCabecalho(Long idUsuario) throws IOException {
+        writer.write("OFXHEADER:100\nDATA:OFXSGML\nVERSION:102\nSECURITY:NONE\nENCODING:UTF-8\n"
+                + "CHARSET:NONE\nCOMPRESSION:NONE\nOLDFILEUID:NONE\nNEWFILEUID:NONE\n\n");
+        writer.write("<OFX>\n<BANKMSGSRSV1>\n<STMTTRNRS>\n<TRNUID>1\n"
+                + "<STATUS>\n<CODE>0\n<SEVERITY>INFO\n</STATUS>\n"
+                + "<STMTRS>\n<CURDEF>BRL\n"
+                + "<BANKACCTFROM>\n<BANKID>0\n<ACCTID>" + idUsuario + "\n<ACCTTYPE>CHECKING\n</BANKACCTFROM>\n"
+                + "<BANKTRANLIST>\n");
+    }
+
+    public void escrever(LancamentoDTO lancamento) throws IOException {
+        if (StatusLancamento.CANCELADO.name().equals(lancamento.getStatus())) {
+            return;
+        }
+        boolean despesa = TipoLancamento.DESPESA.name().equals(lancamento.getTipo());
+
+        writer.write("<STMTTRN>\n<TRNTYPE>");
+        writer.write(despesa ? "DEBIT" : "CREDIT");
+        writer.write("\n<DTPOSTED>");
+        writer.write(String.valueOf(lancamento.getAno()));
+        writer.write(lancamento.getMes() < 10 ? "0" : "");
+        writer.write(String.valueOf(lancamento.getMes()));
+        writer.write("01\n<TRNAMT>");
+        writer.write(despesa ? "-" : "");
+        writer.write(lancamento.getValor().toString());
+        writer.write("\n<FITID>");
+        writer.write(String.valueOf(lancamento.getId()));
+        writer.write("\n<MEMO>");
+        writer.write(escapar(lancamento.getDescricao()));
+        writer.write("\n</STMTTRN>\n");
+    }
+
+    public void escreverRodape() throws IOException {
+        writer.write("</BANKTRANLIST>\n</STMTRS>\n</STMTTRNRS>\n</BANKMSGSRSV1>\n</OFX>\n");
+    }
+
+    private static String escapar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace('\n', ' ')
+                .replace('\r', ' ');
+    }
+}
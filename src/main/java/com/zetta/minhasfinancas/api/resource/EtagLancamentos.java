@@ -0,0 +1,30 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * ETag das consultas que só dependem dos lançamentos de um usuário (saldo e
+ * listagem), montado com a versão guardada em saldo_usuario. Quem chama lê a
+ * versão antes de consultar: se uma escrita acontecer no meio, a resposta
+ * leva o ETag anterior e o cliente só consulta de novo na próxima vez, nunca
+ * fica com dado velho.
+ */
+final class EtagLancamentos {
+
+    private EtagLancamentos() {
+    }
+
+    static String de(Long idUsuario, long versao) {
+        return "\"" + idUsuario + "-" + versao + "\"";
+    }
+
+    /**
+     * no-cache: o navegador pode guardar, mas revalida a cada uso com If-None-Match.
+     */
+    static ResponseEntity.BodyBuilder ok(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+    }
+}
@@ -1,20 +1,49 @@
 package com.zetta.minhasfinancas.api.resource;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.zetta.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.zetta.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
+import com.zetta.minhasfinancas.api.dto.HistoricoLancamentoDTO;
+import com.zetta.minhasfinancas.api.csv.EscritorCsvLancamentos;
+import com.zetta.minhasfinancas.api.csv.LeitorCsvLancamentos;
+import com.zetta.minhasfinancas.api.dto.PaginaLancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.zetta.minhasfinancas.api.ofx.EscritorOfxLancamentos;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.ImportacaoLancamentoService;
+import com.zetta.minhasfinancas.service.impl.LancamentoServiceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
 import com.zetta.minhasfinancas.exception.RegraNegocioException;
@@ -22,7 +51,9 @@ import com.zetta.minhasfinancas.model.entity.Lancamento;
 import com.zetta.minhasfinancas.model.entity.Usuario;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
 import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.service.LancamentoFiltro;
 import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.UsuarioAutenticado;
 import com.zetta.minhasfinancas.service.UsuarioService;
 
 import lombok.RequiredArgsConstructor;
@@ -34,8 +65,11 @@ public class LancamentoResource {
 
 	private final LancamentoService service;
 	private final UsuarioService usuarioService;
+	private final ImportacaoLancamentoService importacaoService;
+	private final AuditoriaLancamentoService auditoriaService;
+	private final ObjectMapper objectMapper;
 
-	private LancamentoDTO converter (Lancamento lancamento) {
+	LancamentoDTO converter (Lancamento lancamento) {
 		return LancamentoDTO.builder()
 				.id(lancamento.getId())
 				.descricao(lancamento.getDescricao())
@@ -54,28 +88,185 @@ public class LancamentoResource {
 				.orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND));
 	}
 
+	/**
+	 * Escritas registradas no lançamento, da mais antiga para a mais recente.
+	 * Só os lançamentos do próprio usuário autenticado: os demais respondem 404.
+	 */
+	@GetMapping("{id}/historico")
+	public ResponseEntity obterHistorico( @PathVariable("id") Long id,
+			@AuthenticationPrincipal UsuarioAutenticado usuario ) {
+		List<HistoricoLancamentoDTO> historico = auditoriaService.obterHistorico(id, usuario.getId());
+		if (historico.isEmpty()) {
+			return new ResponseEntity(HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok(historico);
+	}
+
+	/**
+	 * Com If-None-Match igual à versão atual dos lançamentos do usuário,
+	 * responde 304 sem executar a consulta (ver EtagLancamentos).
+	 */
 	@GetMapping
 	public ResponseEntity buscar(
 			@RequestParam(value ="descricao" , required = false) String descricao,
 			@RequestParam(value = "mes", required = false) Integer mes,
 			@RequestParam(value = "ano", required = false) Integer ano,
-			@RequestParam("usuario") Long idUsuario
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam(value = "status", required = false) StatusLancamento status,
+			@RequestParam("usuario") Long idUsuario,
+			WebRequest request
 			) {
 		
-		Lancamento lancamentoFiltro = new Lancamento();
-		lancamentoFiltro.setDescricao(descricao);
-		lancamentoFiltro.setMes(mes);
-		lancamentoFiltro.setAno(ano);
-		
 		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
 		if(!usuario.isPresent()) {
 			return ResponseEntity.badRequest().body("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
-		}else {
-			lancamentoFiltro.setUsuario(usuario.get());
+		}
+
+		String etag = EtagLancamentos.de(idUsuario, service.obterVersaoPorUsuario(idUsuario));
+		if (request.checkNotModified(etag)) {
+			return null;
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		List<LancamentoDTO> lancamentos = service.buscar(filtro(descricao, mes, ano, tipo, status, idUsuario));
+		return EtagLancamentos.ok(etag).body(lancamentos);
+	}
+	
+	/**
+	 * Variante paginada do buscar: devolve até "limit" lançamentos em ordem de
+	 * (ano, mes, id) e o cursor "next" para a página seguinte. Só do próprio
+	 * usuário autenticado: os demais respondem 403.
+	 */
+	@GetMapping("/pagina")
+	public ResponseEntity buscarPagina(
+			@RequestParam(value ="descricao" , required = false) String descricao,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam(value = "status", required = false) StatusLancamento status,
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "limit", required = false) Integer limite,
+			@RequestParam(value = "next", required = false) String cursor,
+			@AuthenticationPrincipal UsuarioAutenticado usuario
+			) {
+		if (!idUsuario.equals(usuario.getId())) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		try {
+			PaginaLancamentoDTO pagina = service.buscarPagina(
+					filtro(descricao, mes, ano, tipo, status, idUsuario),
+					cursor,
+					limite == null ? LancamentoServiceImpl.LIMITE_PADRAO : limite);
+			return ResponseEntity.ok(pagina);
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Variante em streaming do buscar: escreve o array JSON na resposta à medida
+	 * que o cursor do banco avança, sem montar a lista inteira em memória. Só
+	 * do próprio usuário autenticado, como a paginada.
+	 */
+	@GetMapping("/stream")
+	public void percorrer(
+			@RequestParam(value ="descricao" , required = false) String descricao,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam(value = "status", required = false) StatusLancamento status,
+			@RequestParam("usuario") Long idUsuario,
+			@AuthenticationPrincipal UsuarioAutenticado usuario,
+			HttpServletResponse response
+			) throws IOException {
+		if (!idUsuario.equals(usuario.getId())) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		ObjectWriter writer = objectMapper.writerFor(LancamentoDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			gerador.writeStartArray();
+			service.percorrer(filtro(descricao, mes, ano, tipo, status, idUsuario),
+					lancamento -> escrever(() -> writer.writeValue(gerador, lancamento)));
+			gerador.writeEndArray();
+		}
+	}
+
+	/**
+	 * Exporta todo o histórico do usuário em CSV ou OFX. As linhas vêm do mesmo
+	 * cursor do /stream (DTOs, não entidades) e são escritas direto no corpo da
+	 * resposta, comprimido com gzip quando o cliente aceita. Só o do próprio
+	 * usuário autenticado: os demais respondem 403.
+	 */
+	@GetMapping("/export")
+	public void exportar(
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "format", defaultValue = "csv") String formato,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@AuthenticationPrincipal UsuarioAutenticado usuario,
+			HttpServletResponse response
+			) throws IOException {
+		if (!idUsuario.equals(usuario.getId())) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		boolean ofx = "ofx".equalsIgnoreCase(formato);
+		if (!ofx && !"csv".equalsIgnoreCase(formato)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Formato de exportação inválido, use csv ou ofx.");
+			return;
+		}
+
+		response.setContentType(ofx ? "application/x-ofx" : "text/csv");
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"lancamentos." + (ofx ? "ofx" : "csv") + "\"");
+
+		OutputStream saida = response.getOutputStream();
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			saida = new GZIPOutputStream(saida, 8192);
+		}
+
+		LancamentoFiltro filtro = LancamentoFiltro.builder().idUsuario(idUsuario).build();
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 16384)) {
+			if (ofx) {
+				EscritorOfxLancamentos escritor = new EscritorOfxLancamentos(writer);
+				escritor.escreverCabecalho(idUsuario);
+				service.percorrer(filtro, lancamento -> escrever(() -> escritor.escrever(lancamento)));
+				escritor.escreverRodape();
+			} else {
+				EscritorCsvLancamentos escritor = new EscritorCsvLancamentos(writer);
+				escritor.escreverCabecalho();
+				service.percorrer(filtro, lancamento -> escrever(() -> escritor.escrever(lancamento)));
+			}
+		}
+	}
+
+	private interface Escrita {
+		void executar() throws IOException;
+	}
+
+	private static void escrever(Escrita escrita) {
+		try {
+			escrita.executar();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private LancamentoFiltro filtro(String descricao, Integer mes, Integer ano,
+			TipoLancamento tipo, StatusLancamento status, Long idUsuario) {
+		return LancamentoFiltro.builder()
+				.idUsuario(idUsuario)
+				.ano(ano)
+				.mes(mes)
+				.tipo(tipo)
+				.status(status)
+				.descricao(descricao)
+				.build();
 	}
 	
 	@PostMapping
@@ -83,58 +274,100 @@ public class LancamentoResource {
 		try {
 			Lancamento entidade = converter(dto);
 			entidade = service.salvar(entidade);
-			return new ResponseEntity(entidade, HttpStatus.CREATED);
+			return new ResponseEntity(converter(entidade), HttpStatus.CREATED);
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Importação em lote de um array JSON de lançamentos, todos do usuário autenticado.
+	 */
+	@PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity importar( @RequestBody List<LancamentoDTO> lancamentos,
+			@AuthenticationPrincipal UsuarioAutenticado usuario ) {
+		try {
+			ResultadoImportacaoDTO resultado = importacaoService.importar(usuario.getId(), lancamentos);
+			return new ResponseEntity(resultado, HttpStatus.CREATED);
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Importação em lote de um CSV (ver LeitorCsvLancamentos para o formato),
+	 * para o usuário autenticado.
+	 */
+	@PostMapping(value = "/lote", consumes = "text/csv")
+	public ResponseEntity importarCsv( Reader csv, @AuthenticationPrincipal UsuarioAutenticado usuario ) throws IOException {
+		try {
+			List<LancamentoDTO> lancamentos = LeitorCsvLancamentos.ler(csv);
+			ResultadoImportacaoDTO resultado = importacaoService.importar(usuario.getId(), lancamentos);
+			return new ResponseEntity(resultado, HttpStatus.CREATED);
 		}catch (RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
 		}
 	}
 	
 	@PutMapping("{id}")
-	public ResponseEntity atualizar( @PathVariable("id") Long id, @RequestBody LancamentoDTO dto ) {
-		return service.obterPorId(id).map( entity -> {
-			try {
-				System.out.println(dto);
-				dto.setId(id);
-				System.out.println(dto);
-				Lancamento lancamento = converter(dto);
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);
-			}catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
-			}
-		}).orElseGet( () ->
-			new ResponseEntity("Lancamento não encontrado na base de Dados.", HttpStatus.BAD_REQUEST) );
+	public ResponseEntity atualizar( @PathVariable("id") Long id, @RequestBody LancamentoDTO dto,
+			@AuthenticationPrincipal UsuarioAutenticado usuario ) {
+		try {
+			Lancamento lancamento = service.atualizar(id, usuario.getId(), dto);
+			return ResponseEntity.ok(converter(lancamento));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 
 	/**
 	 * Put -> Usado para fazer atualizações em recursos que já existem no servidor (em entidades)
 	 */
 	@PutMapping("{id}/atualiza-status")
-	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto) {
-		return service.obterPorId(id).map(entity ->{
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
-
-			if (statusSelecionado == null) {
-				return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envie um status válido");
-			}
+	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto,
+			@AuthenticationPrincipal UsuarioAutenticado usuario) {
+		StatusLancamento statusSelecionado;
+		try {
+			statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envie um status válido");
+		}
 
-			entity.setStatus(statusSelecionado);
-			service.atualizar(entity);
-			return ResponseEntity.ok(entity);
-		}).orElseGet( () ->
-				new ResponseEntity("Lancamento não encontrado na base de Dados.", HttpStatus.BAD_REQUEST) );
+		try {
+			service.atualizarStatus(id, usuario.getId(), statusSelecionado);
+			return ResponseEntity.ok().build();
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Muda o status de vários lançamentos do usuário autenticado de uma vez,
+	 * pelos ids ou por ano/mes/tipo (ver AtualizaStatusLoteDTO), e devolve
+	 * quantos mudaram.
+	 */
+	@PutMapping("atualiza-status")
+	public ResponseEntity atualizarStatusEmLote(@RequestBody AtualizaStatusLoteDTO dto,
+			@AuthenticationPrincipal UsuarioAutenticado usuario) {
+		try {
+			int atualizados = service.atualizarStatus(usuario.getId(), dto);
+			return ResponseEntity.ok(atualizados);
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 	
 	@DeleteMapping("{id}")
-	public ResponseEntity deletar( @PathVariable("id") Long id ) {
-		return service.obterPorId(id).map( entidade -> {
-			service.deletar(entidade);
+	public ResponseEntity deletar( @PathVariable("id") Long id, @AuthenticationPrincipal UsuarioAutenticado usuario ) {
+		try {
+			service.deletar(id, usuario.getId());
 			return new ResponseEntity( HttpStatus.NO_CONTENT );
-		}).orElseGet( () -> 
-			new ResponseEntity("Lancamento não encontrado na base de Dados.", HttpStatus.BAD_REQUEST) );
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 	
-	private Lancamento converter(LancamentoDTO dto) {
+	Lancamento converter(LancamentoDTO dto) {
 		Lancamento lancamento = new Lancamento();
 		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
@@ -1,65 +1,190 @@
 package com.zetta.minhasfinancas.api.resource;
 
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
 import com.zetta.minhasfinancas.api.dto.TokenDTO;
 import com.zetta.minhasfinancas.api.dto.UsuarioDTO;
+import com.zetta.minhasfinancas.config.SenhaConfiguration;
 import com.zetta.minhasfinancas.exception.ErroAutenticacao;
 import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
 import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.EventosUsuarioService;
 import com.zetta.minhasfinancas.service.JwtService;
 import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.UsuarioAutenticado;
 import com.zetta.minhasfinancas.service.UsuarioService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/usuarios")
-@RequiredArgsConstructor
 public class UsuarioResource {
     private final UsuarioService service;
     private final LancamentoService lancamentoService;
     private final JwtService jwtService;
+    private final EventosUsuarioService eventosService;
+    private final AuditoriaLancamentoService auditoriaService;
+
+    private final Executor executorSenhas;
+
+    public UsuarioResource(
+            UsuarioService service,
+            LancamentoService lancamentoService,
+            JwtService jwtService,
+            EventosUsuarioService eventosService,
+            AuditoriaLancamentoService auditoriaService,
+            @Qualifier(SenhaConfiguration.EXECUTOR_SENHAS) Executor executorSenhas) {
+        this.service = service;
+        this.lancamentoService = lancamentoService;
+        this.jwtService = jwtService;
+        this.eventosService = eventosService;
+        this.auditoriaService = auditoriaService;
+        this.executorSenhas = executorSenhas;
+    }
 
     @PostMapping("/autenticar")
-    public ResponseEntity<?> autenticar( @RequestBody UsuarioDTO dto ) {
-        try {
-            Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
-            String token = jwtService.gerarToken(usuarioAutenticado);
-            TokenDTO tokenDTO = new TokenDTO( usuarioAutenticado.getNome(), usuarioAutenticado.getId(), token);
-            return ResponseEntity.ok(tokenDTO);
-        }
-        catch (ErroAutenticacao e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> autenticar( @RequestBody UsuarioDTO dto ) {
+        return noExecutorDeSenhas(() -> {
+            try {
+                Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
+                String token = jwtService.gerarToken(usuarioAutenticado);
+                TokenDTO tokenDTO = new TokenDTO( usuarioAutenticado.getNome(), usuarioAutenticado.getId(), token);
+                return ResponseEntity.ok(tokenDTO);
+            }
+            catch (ErroAutenticacao e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
     }
 
     @PostMapping
-    public ResponseEntity salvar(@RequestBody UsuarioDTO dto) {
+    public CompletableFuture<ResponseEntity<?>> salvar(@RequestBody UsuarioDTO dto) {
         Usuario usuario = Usuario.builder()
                 .nome(dto.getNome())
                 .email(dto.getEmail())
                 .senha(dto.getSenha()).build();
+        return noExecutorDeSenhas(() -> {
+            try {
+                Usuario usuarioSalvo = service.salvarUsuario(usuario);
+                return new ResponseEntity<>(usuarioSalvo, HttpStatus.CREATED);
+            } catch (RegraNegocioException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Roda a tarefa (que faz BCrypt) no executor de SenhaConfiguration e
+     * libera a thread do Tomcat; com o executor saturado, responde 503 com
+     * Retry-After na hora, sem enfileirar mais nada.
+     */
+    private CompletableFuture<ResponseEntity<?>> noExecutorDeSenhas(Supplier<ResponseEntity<?>> tarefa) {
         try {
-            Usuario usuarioSalvo = service.salvarUsuario(usuario);
-            return new ResponseEntity(usuarioSalvo, HttpStatus.CREATED);
-        } catch (RegraNegocioException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return CompletableFuture.supplyAsync(tarefa, executorSenhas);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Servidor ocupado, tente novamente em instantes."));
         }
     }
 
-     @GetMapping("{id}/saldo")
-    public ResponseEntity obterSaldo( @PathVariable("id") Long id) {
+    /**
+     * Com If-None-Match igual à versão atual dos lançamentos do usuário,
+     * responde 304 sem ler o saldo (ver EtagLancamentos).
+     */
+    @GetMapping("{id}/saldo")
+    public ResponseEntity obterSaldo( @PathVariable("id") Long id, WebRequest request) {
         Optional<Usuario> usuario = service.obterPorId(id);
 
         if (!usuario.isPresent()) {
             return new ResponseEntity(HttpStatus.NOT_FOUND);
         }
 
-        BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
-        return ResponseEntity.ok(saldo);
+        String etag = EtagLancamentos.de(id, lancamentoService.obterVersaoPorUsuario(id));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        Dinheiro saldo = lancamentoService.obterSaldoPorUsuario(id);
+        return EtagLancamentos.ok(etag).body(saldo);
+    }
+
+    /**
+     * Saldo do próprio usuário autenticado refeito a partir do registro de
+     * auditoria, com as escritas até o momento informado (por padrão, agora).
+     * Só confere com o saldo quando todos os lançamentos do usuário foram
+     * criados depois que o registro passou a existir.
+     */
+    @GetMapping("{id}/saldo/reconstruido")
+    public ResponseEntity obterSaldoReconstruido( @PathVariable("id") Long id,
+            @RequestParam(value = "ate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!id.equals(usuario.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(auditoriaService.reconstruirSaldo(id, ate == null ? LocalDateTime.now() : ate));
+    }
+
+    /**
+     * Stream SSE com um evento "lancamento" (EventoLancamentoDTO) a cada
+     * escrita confirmada nos lançamentos do próprio usuário autenticado.
+     */
+    @GetMapping(value = "{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventos( @PathVariable("id") Long id,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!id.equals(usuario.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(eventosService.inscrever(id));
+    }
+
+    /**
+     * Receitas e despesas por mês, tipo e status entre deAno e ateAno
+     * (por padrão, o ano corrente), lidas da tabela resumo_mensal ou, com
+     * livro-caixa.habilitado, calculadas em memória.
+     */
+    @GetMapping("{id}/resumo")
+    public ResponseEntity obterResumo(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "deAno", required = false) Integer deAno,
+            @RequestParam(value = "ateAno", required = false) Integer ateAno) {
+        if (!service.obterPorId(id).isPresent()) {
+            return new ResponseEntity(HttpStatus.NOT_FOUND);
+        }
+
+        int anoAtual = LocalDate.now().getYear();
+        if (ateAno == null) {
+            ateAno = deAno == null ? anoAtual : Math.max(deAno, anoAtual);
+        }
+        if (deAno == null) {
+            deAno = ateAno;
+        }
+
+        try {
+            List<ResumoMensalDTO> resumo = lancamentoService.obterResumoMensal(id, deAno, ateAno);
+            return ResponseEntity.ok(resumo);
+        } catch (RegraNegocioException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,65 @@
+package com.zetta.minhasfinancas.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.zetta.minhasfinancas.service.DadosToken;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Os caches do Spring (@Cacheable) usam o CacheManager configurado em
+ * spring.cache.*: Caffeine em memória por padrão. Em várias instâncias,
+ * basta trocar spring.cache.type por um provedor compartilhado (ex.: redis,
+ * com o starter correspondente) sem mudar o código que usa os caches.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String CACHE_USUARIOS = "usuarios";
+
+    /**
+     * Tokens JWT já verificados, indexados pelo digest do token. Cada entrada
+     * sai do cache no instante em que o token expira.
+     */
+    @Bean
+    public Cache<String, DadosToken> cacheTokens(@Value("${jwt.cache.tamanho-maximo:10000}") long tamanhoMaximo) {
+        return Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new ExpiraJuntoComToken())
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public MeterBinder metricasCacheTokens(Cache<String, DadosToken> cacheTokens) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, cacheTokens, "jwt-tokens");
+    }
+
+    private static class ExpiraJuntoComToken implements Expiry<String, DadosToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, DadosToken dados, long currentTime) {
+            long restante = Duration.between(Instant.now(), dados.getExpiracao()).toNanos();
+            return Math.max(restante, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, DadosToken dados, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, dados, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, DadosToken dados, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.zetta.minhasfinancas.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache com Caffeine, em memória).
+ * As regiões são criadas aqui a partir de cache.hibernate.regioes.*; uma
+ * região usada numa entidade e não configurada é criada sem limite, com um
+ * aviso no log. As estatísticas de cada região (hit/miss/put), contadas
+ * pelo próprio Caffeine, saem em /actuator/prometheus como cache_* com o
+ * nome da região; o hibernate.generate_statistics fica desligado, porque
+ * conta cada sessão e consulta, não só o cache. Sem tags além das do
+ * JCacheMetrics, para casar com as dos outros caches no Prometheus.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheHibernateProperties.class)
+public class CacheHibernateConfiguration {
+
+    @Bean(destroyMethod = "")
+    public CacheManager cacheManagerHibernate(CacheHibernateProperties propriedades) {
+        // um CacheManager por contexto: o Hibernate fecha o seu ao encerrar
+        CacheManager cacheManager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("financas:hibernate:" + System.identityHashCode(propriedades)),
+                        getClass().getClassLoader());
+
+        propriedades.getRegioes().forEach((nome, regiao) -> {
+            CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+            configuracao.setMaximumSize(OptionalLong.of(regiao.getTamanhoMaximo()));
+            configuracao.setExpireAfterWrite(OptionalLong.of(regiao.getExpiracao().toNanos()));
+            configuracao.setStatisticsEnabled(true);
+            cacheManager.createCache(nome, configuracao);
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public MeterBinder metricasCacheHibernate(CacheManager cacheManagerHibernate, CacheHibernateProperties propriedades) {
+        return registry -> propriedades.getRegioes().keySet().forEach(nome -> JCacheMetrics.monitor(
+                registry, cacheManagerHibernate.getCache(nome), Tags.empty()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerHibernate) {
+        return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerHibernate);
+    }
+}
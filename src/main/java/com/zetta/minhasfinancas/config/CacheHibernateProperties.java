@@ -0,0 +1,30 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Regiões do cache de segundo nível do Hibernate, pelo nome usado em
+ * @Cache(region = ...) / @NaturalIdCache(region = ...). Ex.:
+ * cache.hibernate.regioes.usuario.tamanho-maximo=10000
+ * cache.hibernate.regioes.usuario.expiracao=10m
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.hibernate")
+public class CacheHibernateProperties {
+
+    private Map<String, Regiao> regioes = new LinkedHashMap<>();
+
+    @Data
+    public static class Regiao {
+
+        private long tamanhoMaximo = 10_000;
+
+        /** Tempo de vida de cada entrada a partir da escrita. */
+        private Duration expiracao = Duration.ofMinutes(10);
+    }
+}
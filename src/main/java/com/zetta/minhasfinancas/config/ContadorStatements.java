@@ -0,0 +1,31 @@
+package com.zetta.minhasfinancas.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate na thread atual, entre
+ * iniciar() e finalizar(). Fora desse intervalo não conta nada.
+ */
+public class ContadorStatements implements StatementInspector {
+
+    private final ThreadLocal<int[]> contagem = new ThreadLocal<>();
+
+    public void iniciar() {
+        contagem.set(new int[1]);
+    }
+
+    public int finalizar() {
+        int[] atual = contagem.get();
+        contagem.remove();
+        return atual == null ? 0 : atual[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] atual = contagem.get();
+        if (atual != null) {
+            atual[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,26 @@
+package com.zetta.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Threads que escrevem os eventos SSE nos sockets (ver
+ * EventosUsuarioServiceImpl). Cada inscrição ocupa no máximo uma tarefa na
+ * fila por vez, então a fila nunca passa do número de inscrições.
+ */
+@Configuration
+public class EventosConfiguration {
+
+    public static final String EXECUTOR_EVENTOS = "executorEventos";
+
+    @Bean(name = EXECUTOR_EVENTOS)
+    public ThreadPoolTaskExecutor executorEventos(@Value("${eventos.executor.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("eventos-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        return executor;
+    }
+}
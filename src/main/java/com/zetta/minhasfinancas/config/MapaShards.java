@@ -0,0 +1,117 @@
+package com.zetta.minhasfinancas.config;
+
+import java.util.Arrays;
+
+/**
+ * Em que shard ficam os dados de cada usuário. O id do usuário passa por um
+ * hash e cai num de um número fixo de buckets; faixas de buckets apontam
+ * para os shards. Para mudar a distribuição (ex.: incluir um shard) só as
+ * faixas mudam e os usuários dos buckets que trocaram de shard são movidos
+ * por RebalanceamentoShards; o hash e o número de buckets não devem mudar.
+ *
+ * O mapa é escrito como "0-511:0,512-1023:1" (bucket inicial-final:shard).
+ */
+public final class MapaShards {
+
+    private final int quantidade;
+    private final int[] shardPorBucket;
+
+    private MapaShards(int quantidade, int[] shardPorBucket) {
+        this.quantidade = quantidade;
+        this.shardPorBucket = shardPorBucket;
+    }
+
+    /** Um único shard: o DataSource da aplicação, sem roteamento. */
+    public static MapaShards unico() {
+        return new MapaShards(1, new int[] { 0 });
+    }
+
+    /**
+     * Mapa com as faixas informadas ou, com o mapa vazio, os buckets
+     * divididos em partes iguais e contíguas entre os shards.
+     */
+    public static MapaShards de(int quantidade, int buckets, String mapa) {
+        if (quantidade < 1 || buckets < quantidade) {
+            throw new IllegalArgumentException(
+                    "São necessários ao menos tantos buckets (" + buckets + ") quanto shards (" + quantidade + ").");
+        }
+        int[] shardPorBucket = new int[buckets];
+        if (mapa == null || mapa.trim().isEmpty()) {
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                shardPorBucket[bucket] = (int) ((long) bucket * quantidade / buckets);
+            }
+            return new MapaShards(quantidade, shardPorBucket);
+        }
+
+        Arrays.fill(shardPorBucket, -1);
+        for (String faixa : mapa.split(",")) {
+            try {
+                String[] partes = faixa.trim().split(":");
+                String[] limites = partes[0].split("-");
+                int inicio = Integer.parseInt(limites[0].trim());
+                int fim = Integer.parseInt(limites[limites.length - 1].trim());
+                int shard = Integer.parseInt(partes[1].trim());
+                if (shard < 0 || shard >= quantidade) {
+                    throw new IllegalArgumentException("Shard inexistente na faixa \"" + faixa + "\".");
+                }
+                for (int bucket = inicio; bucket <= fim; bucket++) {
+                    if (shardPorBucket[bucket] != -1) {
+                        throw new IllegalArgumentException("Bucket " + bucket + " em mais de uma faixa do mapa.");
+                    }
+                    shardPorBucket[bucket] = shard;
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Faixa inválida no mapa de shards: \"" + faixa + "\".", e);
+            }
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (shardPorBucket[bucket] == -1) {
+                throw new IllegalArgumentException("Bucket " + bucket + " fora do mapa de shards.");
+            }
+        }
+        return new MapaShards(quantidade, shardPorBucket);
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public int getBuckets() {
+        return shardPorBucket.length;
+    }
+
+    public int shardDoUsuario(long idUsuario) {
+        return shardPorBucket[bucketDoUsuario(idUsuario)];
+    }
+
+    /**
+     * Os ids de usuário são sequenciais; o finalizador do MurmurHash3 espalha
+     * ids vizinhos por buckets diferentes, então cada faixa recebe uma fatia
+     * parecida dos usuários novos e dos antigos.
+     */
+    public int bucketDoUsuario(long idUsuario) {
+        long hash = idUsuario;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shardPorBucket.length);
+    }
+
+    /** O mapa no mesmo formato aceito por de(), com as faixas contíguas juntas. */
+    public String descrever() {
+        StringBuilder descricao = new StringBuilder();
+        int inicio = 0;
+        for (int bucket = 1; bucket <= shardPorBucket.length; bucket++) {
+            if (bucket == shardPorBucket.length || shardPorBucket[bucket] != shardPorBucket[inicio]) {
+                if (descricao.length() > 0) {
+                    descricao.append(',');
+                }
+                descricao.append(inicio).append('-').append(bucket - 1).append(':').append(shardPorBucket[inicio]);
+                inicio = bucket;
+            }
+        }
+        return descricao.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.zetta.minhasfinancas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Mede cada chamada às interfaces de serviço (LancamentoService,
+ * UsuarioService, JwtService, ...) e ao PasswordEncoder. As chamadas aos
+ * repositórios já são medidas pelo Spring Boot (spring.data.repository.invocations).
+ * As tags seguem as do @Timed do Micrometer: class, method e exception.
+ */
+@Aspect
+public class MetricasAspect {
+
+    private MeterRegistry registry;
+
+    public MetricasAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.zetta.minhasfinancas.service.*Service.*(..))")
+    public Object medirServico(ProceedingJoinPoint joinPoint) throws Throwable {
+        return medir("financas.servico", joinPoint);
+    }
+
+    @Around("execution(* org.springframework.security.crypto.password.PasswordEncoder.*(..))")
+    public Object medirSenha(ProceedingJoinPoint joinPoint) throws Throwable {
+        return medir("financas.senha", joinPoint);
+    }
+
+    private Object medir(String nome, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample amostra = Timer.start(registry);
+        String excecao = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            excecao = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            amostra.stop(Timer.builder(nome)
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", excecao)
+                    .register(registry));
+        }
+    }
+}
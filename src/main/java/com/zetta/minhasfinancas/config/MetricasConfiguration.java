@@ -0,0 +1,46 @@
+package com.zetta.minhasfinancas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Métricas próprias da aplicação, expostas em /actuator/prometheus junto
+ * com as do Spring Boot (http.server.requests, spring.data.repository.invocations,
+ * hikaricp.*). Os histogramas são ligados em application.properties.
+ */
+@Configuration
+public class MetricasConfiguration {
+
+    @Bean
+    public ContadorStatements contadorStatements() {
+        return new ContadorStatements();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer inspetorStatements(ContadorStatements contadorStatements) {
+        return propriedades -> propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, contadorStatements);
+    }
+
+    /**
+     * Registrado logo depois do CORS, antes da cadeia do Spring Security, para
+     * contar também as consultas feitas na autenticação.
+     */
+    @Bean
+    public FilterRegistrationBean<MetricasStatementsFilter> metricasStatementsFilter(
+            ContadorStatements contadorStatements, MeterRegistry registry) {
+        FilterRegistrationBean<MetricasStatementsFilter> filter =
+                new FilterRegistrationBean<>(new MetricasStatementsFilter(contadorStatements, registry));
+        filter.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return filter;
+    }
+
+    @Bean
+    public MetricasAspect metricasAspect(MeterRegistry registry) {
+        return new MetricasAspect(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.zetta.minhasfinancas.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Registra quantos comandos SQL cada requisição executou, por método e URI
+ * (o padrão mapeado, ex.: /api/lancamentos/{id}).
+ */
+public class MetricasStatementsFilter extends OncePerRequestFilter {
+
+    private ContadorStatements contador;
+    private MeterRegistry registry;
+
+    public MetricasStatementsFilter(ContadorStatements contador, MeterRegistry registry) {
+        this.contador = contador;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+
+        contador.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = contador.finalizar();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            DistributionSummary.builder("financas.hibernate.statements")
+                    .description("Comandos SQL executados por requisição")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .register(registry)
+                    .record(statements);
+        }
+    }
+}
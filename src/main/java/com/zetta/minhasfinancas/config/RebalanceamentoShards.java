@@ -0,0 +1,125 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Move cada usuário que está fora do shard indicado pelo mapa: os
+ * lançamentos, o saldo, o resumo mensal e os eventos de auditoria dele são
+ * copiados para o shard certo e só depois apagados do anterior. A cópia
+ * começa apagando o que o usuário já tenha no destino, então uma execução
+ * interrompida pode simplesmente ser repetida. Roda com
+ * sharding.rebalancear=true, na subida, antes de a aplicação atender
+ * requisições, e deve ser ligado junto com a mudança do mapa (senão
+ * escritas feitas no shard novo seriam substituídas).
+ */
+@Slf4j
+public class RebalanceamentoShards {
+
+    /** Tabelas com os dados de um usuário, todas com a coluna id_usuario. */
+    static final List<String> TABELAS = Collections.unmodifiableList(
+            Arrays.asList("lancamento", "saldo_usuario", "resumo_mensal", "evento_lancamento"));
+
+    private static final int TAMANHO_LOTE = 500;
+
+    /**
+     * Todo usuário com alguma linha no shard, em qualquer das TABELAS: um
+     * usuário que só tem eventos de auditoria também precisa ser movido.
+     */
+    private static final String USUARIOS = TABELAS.stream()
+            .map(tabela -> " select id_usuario from financas." + tabela + " where id_usuario is not null ")
+            .collect(Collectors.joining(" union "));
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final List<TransactionTemplate> transacoes = new ArrayList<>();
+    private final MapaShards mapa;
+
+    public RebalanceamentoShards(List<DataSource> shards, MapaShards mapa) {
+        for (DataSource shard : shards) {
+            this.shards.add(new JdbcTemplate(shard));
+            this.transacoes.add(new TransactionTemplate(new DataSourceTransactionManager(shard)));
+        }
+        this.mapa = mapa;
+    }
+
+    /** Devolve quantos usuários mudaram de shard. */
+    public int executar() {
+        int movidos = 0;
+        for (int origem = 0; origem < shards.size(); origem++) {
+            List<Long> usuarios = shards.get(origem).queryForList(USUARIOS, Long.class);
+            for (Long idUsuario : usuarios) {
+                int destino = mapa.shardDoUsuario(idUsuario);
+                if (destino != origem) {
+                    mover(idUsuario, origem, destino);
+                    movidos++;
+                }
+            }
+        }
+        log.info("Rebalanceamento de shards moveu {} usuário(s); mapa {}.", movidos, mapa.descrever());
+        return movidos;
+    }
+
+    private void mover(Long idUsuario, int origem, int destino) {
+        transacoes.get(destino).executeWithoutResult(status -> {
+            for (String tabela : TABELAS) {
+                shards.get(destino).update("delete from financas." + tabela + " where id_usuario = ?", idUsuario);
+                copiar(tabela, idUsuario, shards.get(origem), shards.get(destino));
+            }
+        });
+        transacoes.get(origem).executeWithoutResult(status -> {
+            for (String tabela : TABELAS) {
+                shards.get(origem).update("delete from financas." + tabela + " where id_usuario = ?", idUsuario);
+            }
+        });
+        log.debug("Usuário {} movido do shard {} para o {}.", idUsuario, origem, destino);
+    }
+
+    /** Lê as linhas por cursor e as grava no destino em lotes JDBC. */
+    private void copiar(String tabela, Long idUsuario, JdbcTemplate origem, JdbcTemplate destino) {
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        String[] insercao = new String[1];
+        origem.query("select * from financas." + tabela + " where id_usuario = ?", linha -> {
+            ResultSetMetaData colunas = linha.getMetaData();
+            if (insercao[0] == null) {
+                insercao[0] = insercao(tabela, colunas);
+            }
+            Object[] valores = new Object[colunas.getColumnCount()];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = linha.getObject(i + 1);
+            }
+            lote.add(valores);
+            if (lote.size() == TAMANHO_LOTE) {
+                destino.batchUpdate(insercao[0], lote);
+                lote.clear();
+            }
+        }, idUsuario);
+        if (!lote.isEmpty()) {
+            destino.batchUpdate(insercao[0], lote);
+        }
+    }
+
+    private static String insercao(String tabela, ResultSetMetaData colunas) throws SQLException {
+        StringBuilder nomes = new StringBuilder();
+        StringBuilder parametros = new StringBuilder();
+        for (int i = 1; i <= colunas.getColumnCount(); i++) {
+            if (i > 1) {
+                nomes.append(", ");
+                parametros.append(", ");
+            }
+            nomes.append(colunas.getColumnName(i));
+            parametros.append('?');
+        }
+        return "insert into financas." + tabela + " (" + nomes + ") values (" + parametros + ")";
+    }
+}
@@ -0,0 +1,180 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Manda as transações somente leitura (@Transactional(readOnly = true)) para
+ * uma das réplicas disponíveis, em rodízio, e todo o resto para o primário.
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy: sem ele a
+ * conexão é pedida no início da transação, antes de o readOnly estar
+ * visível no TransactionSynchronizationManager.
+ *
+ * Depois que uma transação de escrita de um usuário é confirmada, as
+ * leituras desse usuário ficam no primário durante janelaNoPrimario, para
+ * ele não deixar de ver o que acabou de gravar enquanto a réplica alcança
+ * o primário. Réplicas que não respondem ou passam do atraso máximo saem
+ * do rodízio em verificarReplicas() e voltam quando se recuperam; sem
+ * nenhuma disponível, as leituras vão para o primário.
+ */
+@Slf4j
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARIO = "primario";
+
+    private static final int TIMEOUT_VERIFICACAO_SEGUNDOS = 2;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    /** Usuário → System.nanoTime() até quando as leituras ficam no primário. */
+    private final Map<Long, Long> noPrimarioAte = new ConcurrentHashMap<>();
+
+    private final Supplier<Long> usuarioAtual;
+    private final long janelaNoPrimario;
+    private final String consultaAtraso;
+    private final double atrasoMaximo;
+
+    public RoteamentoDataSource(
+            DataSource primario,
+            Map<String, DataSource> replicas,
+            RoteamentoDataSourceProperties propriedades,
+            Supplier<Long> usuarioAtual) {
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(PRIMARIO, primario);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        replicas.forEach((nome, dataSource) -> this.replicas.add(new Replica(nome, dataSource)));
+
+        this.usuarioAtual = usuarioAtual;
+        this.janelaNoPrimario = propriedades.getJanelaNoPrimario().toNanos();
+        this.consultaAtraso = propriedades.getConsultaAtraso();
+        this.atrasoMaximo = propriedades.getAtrasoMaximo().toMillis() / 1000.0;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long usuario = usuarioAtual.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            manterNoPrimarioAposConfirmar(usuario);
+            return PRIMARIO;
+        }
+        if (usuario != null && isNoPrimario(usuario)) {
+            return PRIMARIO;
+        }
+        Replica replica = escolherReplica();
+        return replica == null ? PRIMARIO : replica.nome;
+    }
+
+    /**
+     * Testa cada réplica (conexão e, se configurada, a consulta de atraso)
+     * e a tira do rodízio ou devolve a ele. Também descarta as janelas de
+     * read-your-writes já vencidas.
+     */
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            String problema = verificar(replica);
+            if (problema != null && replica.disponivel) {
+                log.warn("Réplica {} fora do roteamento de leituras: {}", replica.nome, problema);
+            } else if (problema == null && !replica.disponivel) {
+                log.info("Réplica {} de volta ao roteamento de leituras.", replica.nome);
+            }
+            replica.disponivel = problema == null;
+        }
+
+        long agora = System.nanoTime();
+        noPrimarioAte.values().removeIf(ate -> ate - agora <= 0);
+    }
+
+    public int contarReplicasDisponiveis() {
+        return (int) replicas.stream().filter(replica -> replica.disponivel).count();
+    }
+
+    /**
+     * Fecha os pools das réplicas, que não são beans; o do primário é
+     * fechado pelo próprio contexto.
+     */
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private void manterNoPrimarioAposConfirmar(Long usuario) {
+        if (usuario == null || janelaNoPrimario <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                noPrimarioAte.put(usuario, System.nanoTime() + janelaNoPrimario);
+            }
+        });
+    }
+
+    private boolean isNoPrimario(Long usuario) {
+        Long ate = noPrimarioAte.get(usuario);
+        return ate != null && ate - System.nanoTime() > 0;
+    }
+
+    private Replica escolherReplica() {
+        int quantidade = replicas.size();
+        int inicio = proxima.getAndIncrement();
+        for (int i = 0; i < quantidade; i++) {
+            Replica replica = replicas.get(Math.floorMod(inicio + i, quantidade));
+            if (replica.disponivel) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String verificar(Replica replica) {
+        try (Connection conexao = replica.dataSource.getConnection()) {
+            if (!conexao.isValid(TIMEOUT_VERIFICACAO_SEGUNDOS)) {
+                return "conexão inválida";
+            }
+            if (consultaAtraso == null || consultaAtraso.isEmpty()) {
+                return null;
+            }
+            try (Statement comando = conexao.createStatement()) {
+                comando.setQueryTimeout(TIMEOUT_VERIFICACAO_SEGUNDOS);
+                try (ResultSet resultado = comando.executeQuery(consultaAtraso)) {
+                    double atraso = resultado.next() ? resultado.getDouble(1) : 0;
+                    return atraso > atrasoMaximo ? "atraso de " + atraso + "s" : null;
+                }
+            }
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static class Replica {
+
+        private final String nome;
+        private final DataSource dataSource;
+        private volatile boolean disponivel = true;
+
+        private Replica(String nome, DataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.zetta.minhasfinancas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import com.zetta.minhasfinancas.service.UsuarioAutenticado;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Com datasource.roteamento.habilitado=true, o DataSource da aplicação
+ * passa a ser o RoteamentoDataSource: o primário de spring.datasource
+ * (inclusive spring.datasource.hikari.*) e um pool por réplica de
+ * datasource.roteamento.replicas. Os pools aparecem nas métricas hikaricp.*
+ * com os nomes "primario", "replica-1", "replica-2"...
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.roteamento", name = "habilitado", havingValue = "true")
+@EnableConfigurationProperties(RoteamentoDataSourceProperties.class)
+public class RoteamentoDataSourceConfiguration {
+
+    private RoteamentoDataSource roteamento;
+    private List<HikariDataSource> poolsReplicas = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties propriedades) {
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName(RoteamentoDataSource.PRIMARIO);
+        return primario;
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(
+            HikariDataSource primarioDataSource,
+            DataSourceProperties propriedadesPrimario,
+            RoteamentoDataSourceProperties propriedades) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<RoteamentoDataSourceProperties.Replica> configuradas = propriedades.getReplicas();
+        for (int i = 0; i < configuradas.size(); i++) {
+            RoteamentoDataSourceProperties.Replica replica = configuradas.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + (i + 1));
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : propriedadesPrimario.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : propriedadesPrimario.determinePassword());
+            dataSource.setMaximumPoolSize(replica.getMaximoConexoes());
+            dataSource.setReadOnly(true);
+            // o pool não pode impedir a subida quando uma réplica está fora
+            dataSource.setInitializationFailTimeout(-1);
+            poolsReplicas.add(dataSource);
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+
+        roteamento = new RoteamentoDataSource(
+                primarioDataSource, replicas, propriedades, RoteamentoDataSourceConfiguration::idUsuarioAtual);
+        return roteamento;
+    }
+
+    /**
+     * Os pools das réplicas não são beans, então as métricas deles são
+     * ligadas aqui (o Hikari aceita o tracker mesmo com o pool já iniciado).
+     */
+    @Bean
+    public MeterBinder metricasRoteamento(RoteamentoDataSource roteamentoDataSource) {
+        return registry -> {
+            poolsReplicas.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            Gauge.builder("financas.datasource.replicas.disponiveis", roteamentoDataSource,
+                            RoteamentoDataSource::contarReplicasDisponiveis)
+                    .description("Réplicas de leitura dentro do roteamento")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * O JPA e o Flyway usam este; o proxy só pede a conexão ao roteamento no
+     * primeiro comando, quando o readOnly da transação já é conhecido.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.roteamento.verificacao-ms:5000}")
+    public void verificarReplicas() {
+        roteamento.verificarReplicas();
+    }
+
+    private static Long idUsuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao != null && autenticacao.getPrincipal() instanceof UsuarioAutenticado) {
+            return ((UsuarioAutenticado) autenticacao.getPrincipal()).getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de leitura usadas pelo RoteamentoDataSource. Ex.:
+ * datasource.roteamento.habilitado=true
+ * datasource.roteamento.replicas[0].url=jdbc:postgresql://replica-1:5432/postgres
+ * Usuário e senha, quando omitidos, são os de spring.datasource.
+ */
+@Data
+@ConfigurationProperties(prefix = "datasource.roteamento")
+public class RoteamentoDataSourceProperties {
+
+    private boolean habilitado;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Por quanto tempo, depois de uma escrita confirmada, as leituras do
+     * mesmo usuário continuam no primário (read-your-writes).
+     */
+    private Duration janelaNoPrimario = Duration.ofSeconds(5);
+
+    /**
+     * Consulta que devolve, em segundos, o atraso da réplica em relação ao
+     * primário. Vazia, a verificação só testa a conexão.
+     */
+    private String consultaAtraso;
+
+    /** Acima deste atraso a réplica sai do roteamento até se recuperar. */
+    private Duration atrasoMaximo = Duration.ofSeconds(10);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximoConexoes = 10;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zetta.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * BCrypt é caro de propósito (dezenas de ms por hash com a força padrão), então
+ * autenticação e cadastro rodam num executor próprio e limitado em vez de
+ * ocupar as threads do Tomcat. Com todas as threads ocupadas e a fila cheia, o
+ * executor rejeita a tarefa (TaskRejectedException) e o UsuarioResource
+ * responde 503 em vez de acumular requisições.
+ */
+@Configuration
+public class SenhaConfiguration {
+
+    public static final String EXECUTOR_SENHAS = "executorSenhas";
+
+    /**
+     * A força vale para novos hashes; senhas gravadas com força menor são
+     * refeitas no próximo login (ver UsuarioServiceImpl.autenticar). A
+     * atualização é só para cima: hashes com força maior ficam como estão.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${senha.bcrypt.forca:10}") int forca) {
+        return new BCryptPasswordEncoder(forca);
+    }
+
+    @Bean(name = EXECUTOR_SENHAS)
+    public ThreadPoolTaskExecutor executorSenhas(
+            @Value("${senha.executor.threads:0}") int threads,
+            @Value("${senha.executor.fila:100}") int fila) {
+        int tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("senha-");
+        executor.setCorePoolSize(tamanho);
+        executor.setMaxPoolSize(tamanho);
+        executor.setQueueCapacity(fila);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,78 @@
+package com.zetta.minhasfinancas.config;
+
+/**
+ * Diz ao ShardDataSource, na thread atual, de qual usuário (ou de qual
+ * shard, nas tarefas que percorrem todos) são os dados acessados. Os
+ * serviços abrem o escopo no início dos métodos transacionais; como o
+ * DataSource fica atrás de um LazyConnectionDataSourceProxy, a conexão só é
+ * pedida no primeiro comando, já dentro do escopo. Fora de um escopo o
+ * acesso vai para o shard 0, onde fica a tabela usuario.
+ *
+ * <pre>
+ * try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ShardContexto {
+
+    private static final ThreadLocal<Destino> ATUAL = new ThreadLocal<>();
+
+    private ShardContexto() {
+    }
+
+    public static Escopo doUsuario(Long idUsuario) {
+        return abrir(idUsuario == null ? null : new Destino(idUsuario, null));
+    }
+
+    public static Escopo doShard(int shard) {
+        return abrir(new Destino(null, shard));
+    }
+
+    /** O shard do escopo atual segundo o mapa, ou 0 fora de um escopo. */
+    static int shardAtual(MapaShards mapa) {
+        Destino destino = ATUAL.get();
+        if (destino == null) {
+            return 0;
+        }
+        return destino.shard != null ? destino.shard : mapa.shardDoUsuario(destino.idUsuario);
+    }
+
+    private static Escopo abrir(Destino destino) {
+        Escopo escopo = new Escopo(ATUAL.get());
+        if (destino != null) {
+            ATUAL.set(destino);
+        }
+        return escopo;
+    }
+
+    /** Ao fechar, volta ao escopo que existia quando este foi aberto. */
+    public static final class Escopo implements AutoCloseable {
+
+        private final Destino anterior;
+
+        private Escopo(Destino anterior) {
+            this.anterior = anterior;
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                ATUAL.remove();
+            } else {
+                ATUAL.set(anterior);
+            }
+        }
+    }
+
+    private static final class Destino {
+
+        private final Long idUsuario;
+        private final Integer shard;
+
+        private Destino(Long idUsuario, Integer shard) {
+            this.idUsuario = idUsuario;
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.zetta.minhasfinancas.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entrega a conexão do shard do escopo aberto em ShardContexto. Precisa
+ * ficar atrás de um LazyConnectionDataSourceProxy, pelo mesmo motivo do
+ * RoteamentoDataSource: a transação começa antes de o serviço abrir o escopo.
+ */
+public class ShardDataSource extends AbstractRoutingDataSource {
+
+    private final List<DataSource> shards;
+    private final MapaShards mapa;
+
+    /** shards.get(0) é o shard padrão, o de spring.datasource. */
+    public ShardDataSource(List<DataSource> shards, MapaShards mapa) {
+        if (shards.size() != mapa.getQuantidade()) {
+            throw new IllegalArgumentException(
+                    "O mapa tem " + mapa.getQuantidade() + " shard(s), mas há " + shards.size() + " DataSource(s).");
+        }
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            destinos.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(shards.get(0));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.mapa = mapa;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContexto.shardAtual(mapa);
+    }
+
+    /** Os DataSources de cada shard, sem roteamento. */
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    /**
+     * Fecha os pools dos shards que não são beans; o do shard 0 é fechado
+     * pelo próprio contexto.
+     */
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable) {
+                ((AutoCloseable) shard).close();
+            }
+        }
+    }
+}
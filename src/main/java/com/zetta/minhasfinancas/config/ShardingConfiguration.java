@@ -0,0 +1,149 @@
+package com.zetta.minhasfinancas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * O MapaShards existe sempre (com um shard só quando o sharding está
+ * desligado), para os serviços que percorrem os shards. Com
+ * sharding.habilitado=true, o DataSource da aplicação passa a ser o
+ * ShardDataSource: o shard 0 é o banco de spring.datasource (inclusive
+ * spring.datasource.hikari.*), onde também fica a tabela usuario, e há um
+ * pool por shard de sharding.shards, com os nomes "shard-1", "shard-2"...
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    /**
+     * Início da faixa de ids de lançamento de cada shard (ver
+     * db/migration/shard).
+     */
+    private static final long FAIXA_IDS_POR_SHARD = 1L << 48;
+
+    @Bean
+    public MapaShards mapaShards(ShardingProperties propriedades) {
+        if (!propriedades.isHabilitado()) {
+            return MapaShards.unico();
+        }
+        return MapaShards.de(propriedades.getShards().size() + 1, propriedades.getBuckets(), propriedades.getMapa());
+    }
+
+    @Slf4j
+    @Configuration
+    @ConditionalOnProperty(prefix = "sharding", name = "habilitado", havingValue = "true")
+    static class Roteamento {
+
+        private final List<HikariDataSource> pools = new ArrayList<>();
+
+        @Bean
+        @ConfigurationProperties(prefix = "spring.datasource.hikari")
+        public HikariDataSource shardPadraoDataSource(DataSourceProperties propriedades) {
+            HikariDataSource shard = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            shard.setPoolName("shard-0");
+            return shard;
+        }
+
+        /**
+         * Cria os pools dos demais shards e aplica neles as migrações (as de
+         * spring.flyway.locations e as de db/migration/shard); o shard 0 é
+         * migrado pelo Flyway do Spring Boot, como sem sharding.
+         */
+        @Bean
+        public ShardDataSource shardDataSource(
+                HikariDataSource shardPadraoDataSource,
+                DataSourceProperties propriedadesPadrao,
+                ShardingProperties propriedades,
+                MapaShards mapaShards,
+                FlywayProperties flyway,
+                Environment ambiente) {
+            if (ambiente.getProperty("datasource.roteamento.habilitado", Boolean.class, false)) {
+                throw new IllegalStateException(
+                        "sharding.habilitado e datasource.roteamento.habilitado não podem ser usados juntos.");
+            }
+
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(shardPadraoDataSource);
+            List<ShardingProperties.Shard> configurados = propriedades.getShards();
+            for (int i = 0; i < configurados.size(); i++) {
+                ShardingProperties.Shard configurado = configurados.get(i);
+                HikariDataSource shard = new HikariDataSource();
+                shard.setPoolName("shard-" + (i + 1));
+                shard.setJdbcUrl(configurado.getUrl());
+                shard.setUsername(configurado.getUsername() != null ? configurado.getUsername() : propriedadesPadrao.determineUsername());
+                shard.setPassword(configurado.getPassword() != null ? configurado.getPassword() : propriedadesPadrao.determinePassword());
+                shard.setMaximumPoolSize(configurado.getMaximoConexoes());
+                pools.add(shard);
+                migrar(shard, i + 1, flyway);
+                shards.add(shard);
+            }
+            log.info("Lançamentos em {} shard(s); mapa {}.", shards.size(), mapaShards.descrever());
+            return new ShardDataSource(shards, mapaShards);
+        }
+
+        @Bean
+        public MeterBinder metricasShards() {
+            return registry -> pools.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        }
+
+        /**
+         * O JPA e o Flyway usam este; o proxy só pede a conexão no primeiro
+         * comando, quando o serviço já abriu o escopo do usuário.
+         */
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSource shardDataSource) {
+            return new LazyConnectionDataSourceProxy(shardDataSource);
+        }
+
+        /**
+         * Roda depois que todos os beans existem (o shard 0 já migrado pelo
+         * Flyway do Spring Boot) e antes de o servidor web aceitar conexões.
+         */
+        @Bean
+        @ConditionalOnProperty(prefix = "sharding", name = "rebalancear", havingValue = "true")
+        public SmartInitializingSingleton rebalanceamentoShards(ShardDataSource shardDataSource, MapaShards mapaShards) {
+            return () -> new RebalanceamentoShards(shardDataSource.getShards(), mapaShards).executar();
+        }
+
+        /**
+         * Fora de ordem porque as migrações de db/migration/shard têm versão
+         * maior que as comuns criadas depois delas, que ainda precisam rodar
+         * nos shards já existentes.
+         */
+        private static void migrar(DataSource shard, int numero, FlywayProperties flyway) {
+            List<String> locais = new ArrayList<>(flyway.getLocations());
+            locais.add("classpath:db/migration/shard");
+            Flyway.configure()
+                    .dataSource(shard)
+                    .schemas(flyway.getSchemas().toArray(new String[0]))
+                    .locations(locais.toArray(new String[0]))
+                    .baselineOnMigrate(flyway.isBaselineOnMigrate())
+                    .baselineVersion(flyway.getBaselineVersion())
+                    .outOfOrder(true)
+                    .placeholders(Collections.singletonMap(
+                            "inicio_ids", String.valueOf(numero * FAIXA_IDS_POR_SHARD + 50)))
+                    .load()
+                    .migrate();
+        }
+    }
+}
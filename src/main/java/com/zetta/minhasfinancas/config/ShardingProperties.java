@@ -0,0 +1,44 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shards de lançamentos (ver MapaShards e ShardDataSource). O shard 0 é o
+ * banco de spring.datasource; os demais vêm de sharding.shards. Ex.:
+ * sharding.habilitado=true
+ * sharding.shards[0].url=jdbc:postgresql://shard-1:5432/postgres
+ * Usuário e senha, quando omitidos, são os de spring.datasource.
+ */
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    private boolean habilitado;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    /** Fixo depois que houver dados: mudá-lo muda o bucket de todos os usuários. */
+    private int buckets = 1024;
+
+    /** Faixas de buckets por shard; vazio divide os buckets por igual. */
+    private String mapa;
+
+    /**
+     * Na subida, move para o shard certo os usuários que estão em outro
+     * (depois de uma mudança no mapa ou na lista de shards).
+     */
+    private boolean rebalancear;
+
+    @Data
+    public static class Shard {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximoConexoes = 10;
+    }
+}
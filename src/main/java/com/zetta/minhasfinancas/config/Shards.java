@@ -0,0 +1,40 @@
+package com.zetta.minhasfinancas.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Para as tarefas que não são de um usuário só (reconciliação, backfill):
+ * uma transação não atravessa shards, então elas rodam uma vez por shard,
+ * cada vez numa transação própria. Sem sharding há um shard só e a tarefa
+ * roda uma vez, como antes.
+ */
+@Component
+public class Shards {
+
+    private final MapaShards mapa;
+    private final TransactionTemplate transacao;
+
+    public Shards(MapaShards mapa, PlatformTransactionManager transactionManager) {
+        this.mapa = mapa;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public int getQuantidade() {
+        return mapa.getQuantidade();
+    }
+
+    public void emCadaShard(IntConsumer tarefa) {
+        for (int shard = 0; shard < mapa.getQuantidade(); shard++) {
+            int atual = shard;
+            try (ShardContexto.Escopo escopo = ShardContexto.doShard(atual)) {
+                transacao.executeWithoutResult(status -> tarefa.accept(atual));
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.zetta.minhasfinancas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo opcional (servidor.threads-virtuais=true) em que o Tomcat atende cada
+ * requisição numa thread virtual em vez do pool de threads de plataforma
+ * (server.tomcat.threads.max). Bloquear em JDBC passa a custar só a pilha da
+ * thread virtual, então milhares de conexões lentas cabem sem crescer o pool;
+ * o limite passa a ser server.tomcat.max-connections e, para o que chega ao
+ * banco, o pool do Hikari.
+ *
+ * O projeto compila para Java 11, então o executor é obtido por reflexão e só
+ * existe rodando em Java 21 ou superior. Em JVMs anteriores a propriedade é
+ * ignorada com um aviso e o Tomcat segue com as threads de plataforma.
+ *
+ * Limitação: no Java 21 uma thread virtual que bloqueia dentro de
+ * synchronized fica presa à thread carregadora. O driver do PostgreSQL até a
+ * 42.5 faz o I/O do socket assim, por isso o perfil Maven jdk21 sobe o driver
+ * para a 42.7; o H2 do perfil test também sincroniza cada chamada JDBC, então
+ * medições com ele subestimam o ganho.
+ *
+ * Comparação medida com o CargaTest (mvn -P carga test, perfil test com H2,
+ * JDK 21.0.1, 1 vCPU, 50 usuários x 200 lançamentos, 30 s após 5 s de
+ * aquecimento), em req/s e p95 em ms, threads de plataforma / virtuais:
+ * <pre>
+ *                       8 clientes                 64 clientes
+ * GET lancamentos       35,4 / 37,6 (15 / 17)      36,6 / 44,2 (15 / 20)
+ * GET saldo             24,2 / 26,6 (12 / 15)      26,5 / 30,3 (13 / 17)
+ * PUT atualiza-status   14,8 / 16,0 (15 / 15)      15,8 / 17,2 (14 / 15)
+ * PUT lancamento         9,7 /  9,6 (21 / 22)      10,8 / 10,5 (17 / 25)
+ * POST autenticar        5,6 /  5,3 (1707 / 1862)   5,7 /  5,3 (11919 / 12493)
+ * </pre>
+ * Com uma CPU o bcrypt satura o processador e a vazão quase não muda; as
+ * threads virtuais só trazem ganho modesto nas leituras, com p95 um pouco
+ * maior. Com 400 clientes nenhum dos dois modos terminou nessa máquina (o
+ * cliente estoura o timeout enquanto o bcrypt enfileira), então a comparação
+ * em alta concorrência ainda falta e deve ser feita com PostgreSQL e mais CPUs.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "servidor.threads-virtuais", havingValue = "true")
+public class ThreadsVirtuaisConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> tomcatComThreadsVirtuais() {
+        Optional<ExecutorService> executor = executorDeThreadsVirtuais();
+        if (!executor.isPresent()) {
+            log.warn("servidor.threads-virtuais=true, mas a JVM {} não tem threads virtuais; "
+                    + "o Tomcat continua com threads de plataforma", Runtime.version());
+            return protocolHandler -> { };
+        }
+        log.info("Tomcat atendendo requisições em threads virtuais");
+        return protocolHandler -> protocolHandler.setExecutor(executor.get());
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor(), quando a JVM tem.
+     */
+    static Optional<ExecutorService> executorDeThreadsVirtuais() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) fabrica.invoke(null));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        } catch (InvocationTargetException e) {
+            // Java 19 e 20: o método existe, mas exige --enable-preview
+            if (e.getCause() instanceof UnsupportedOperationException) {
+                return Optional.empty();
+            }
+            throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.zetta.minhasfinancas.api.json.DinheiroJson;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor monetário em centavos, num long. Soma, comparação e formatação são
+ * aritmética inteira, sem BigDecimal; ele só aparece nas bordas que o exigem
+ * (de/paraBigDecimal). Gravado como bigint pelo DinheiroConverter e
+ * escrito/lido no JSON como número com duas casas pelo DinheiroJson.
+ */
+@JsonSerialize(using = DinheiroJson.Serializador.class)
+@JsonDeserialize(using = DinheiroJson.Desserializador.class)
+public final class Dinheiro implements Comparable<Dinheiro> {
+
+    public static final Dinheiro ZERO = new Dinheiro(0);
+
+    /** Sinal, 18 dígitos e o ponto decimal cabem com folga. */
+    public static final int TAMANHO_MAXIMO_TEXTO = 24;
+
+    private static final long MAXIMO_ANTES_DE_MULTIPLICAR = Long.MAX_VALUE / 10;
+
+    private final long centavos;
+
+    private Dinheiro(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinheiro deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+
+    /**
+     * Arredonda para centavos com HALF_UP, como o PostgreSQL fazia ao gravar
+     * na antiga coluna numeric(16, 2).
+     */
+    public static Dinheiro de(BigDecimal valor) {
+        if (valor == null) {
+            return null;
+        }
+        return deCentavos(valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Dinheiro parse(CharSequence texto) {
+        if (texto == null) {
+            return null;
+        }
+        char[] caracteres = new char[texto.length()];
+        for (int i = 0; i < caracteres.length; i++) {
+            caracteres[i] = texto.charAt(i);
+        }
+        return parse(caracteres, 0, caracteres.length);
+    }
+
+    /**
+     * Lê um decimal no formato [-+]digitos[.digitos], com ponto. Casas além
+     * dos centavos são arredondadas com HALF_UP, pelo terceiro dígito.
+     * Notação científica (1e3) é aceita, passando por BigDecimal.
+     *
+     * @throws NumberFormatException se o texto não for um decimal ou não
+     *         couber em centavos num long
+     */
+    public static Dinheiro parse(char[] texto, int inicio, int tamanho) {
+        int fim = inicio + tamanho;
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fim && (texto[i] == '-' || texto[i] == '+')) {
+            negativo = texto[i] == '-';
+            i++;
+        }
+
+        long centavos = 0;
+        int digitos = 0;
+        int casas = -1;
+        boolean arredondarParaCima = false;
+        for (; i < fim; i++) {
+            char c = texto[i];
+            if (c == '.' && casas < 0) {
+                casas = 0;
+            } else if (c >= '0' && c <= '9') {
+                digitos++;
+                if (casas < 2) {
+                    centavos = acrescentarDigito(centavos, c - '0', texto, inicio, tamanho);
+                } else if (casas == 2) {
+                    arredondarParaCima = c >= '5';
+                }
+                if (casas >= 0) {
+                    casas++;
+                }
+            } else if (c == 'e' || c == 'E') {
+                return deNotacaoCientifica(texto, inicio, tamanho);
+            } else {
+                throw invalido(texto, inicio, tamanho);
+            }
+        }
+        if (digitos == 0) {
+            throw invalido(texto, inicio, tamanho);
+        }
+
+        for (int faltando = casas < 0 ? 2 : 2 - Math.min(casas, 2); faltando > 0; faltando--) {
+            centavos = acrescentarDigito(centavos, 0, texto, inicio, tamanho);
+        }
+        if (arredondarParaCima) {
+            centavos++;
+        }
+        return deCentavos(negativo ? -centavos : centavos);
+    }
+
+    /**
+     * O expoente é conferido antes do setScale: com 1e99999999 ele montaria
+     * um número de cem milhões de dígitos antes de o longValueExact recusar.
+     */
+    private static Dinheiro deNotacaoCientifica(char[] texto, int inicio, int tamanho) {
+        BigDecimal valor = new BigDecimal(texto, inicio, tamanho);
+        long digitosInteiros = (long) valor.precision() - valor.scale();
+        if (digitosInteiros > 19) {
+            throw invalido(texto, inicio, tamanho);
+        }
+        if (digitosInteiros < -2) {
+            // menor que 0,001: arredonda para zero
+            return ZERO;
+        }
+        try {
+            return de(valor);
+        } catch (ArithmeticException e) {
+            throw invalido(texto, inicio, tamanho);
+        }
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Dinheiro somar(Dinheiro outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro subtrair(Dinheiro outro) {
+        return deCentavos(Math.subtractExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    public int signum() {
+        return Long.signum(centavos);
+    }
+
+    public BigDecimal paraBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Escreve o valor com duas casas ("-12.05") a partir de inicio e
+     * retorna quantos caracteres usou; destino precisa de
+     * TAMANHO_MAXIMO_TEXTO posições livres.
+     */
+    public int escrever(char[] destino, int inicio) {
+        // trabalha com o valor negativo para que Long.MIN_VALUE também caiba
+        long restante = centavos > 0 ? -centavos : centavos;
+        int digitos = 1;
+        for (long r = restante / 10; r != 0; r /= 10) {
+            digitos++;
+        }
+        digitos = Math.max(digitos, 3);
+
+        int tamanho = (centavos < 0 ? 1 : 0) + digitos + 1;
+        int posicao = inicio + tamanho;
+        for (int i = 0; i < digitos; i++) {
+            if (i == 2) {
+                destino[--posicao] = '.';
+            }
+            destino[--posicao] = (char) ('0' - restante % 10);
+            restante /= 10;
+        }
+        if (centavos < 0) {
+            destino[--posicao] = '-';
+        }
+        return tamanho;
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof Dinheiro && ((Dinheiro) outro).centavos == centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        char[] texto = new char[TAMANHO_MAXIMO_TEXTO];
+        return new String(texto, 0, escrever(texto, 0));
+    }
+
+    private static long acrescentarDigito(long centavos, int digito, char[] texto, int inicio, int tamanho) {
+        if (centavos > MAXIMO_ANTES_DE_MULTIPLICAR) {
+            throw invalido(texto, inicio, tamanho);
+        }
+        long resultado = centavos * 10 + digito;
+        if (resultado < 0) {
+            throw invalido(texto, inicio, tamanho);
+        }
+        return resultado;
+    }
+
+    private static NumberFormatException invalido(char[] texto, int inicio, int tamanho) {
+        return new NumberFormatException("Valor monetário inválido: " + new String(texto, inicio, tamanho));
+    }
+}
@@ -0,0 +1,22 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Grava Dinheiro como bigint em centavos. Aplicado a todo atributo do tipo,
+ * inclusive nos parâmetros e resultados das consultas JPQL.
+ */
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Dinheiro valor) {
+        return valor == null ? null : valor.getCentavos();
+    }
+
+    @Override
+    public Dinheiro convertToEntityAttribute(Long centavos) {
+        return centavos == null ? null : Dinheiro.deCentavos(centavos);
+    }
+}
@@ -0,0 +1,71 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Uma escrita confirmada num lançamento, no registro de auditoria: o estado
+ * do lançamento depois dela (ou o último estado, quando removido), o
+ * usuário autenticado que a fez e o momento em que foi capturada.
+ */
+@Entity
+@Table( name = "evento_lancamento", schema = "financas" )
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoLancamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_lancamento_seq")
+    @SequenceGenerator(name = "evento_lancamento_seq", sequenceName = "evento_lancamento_seq", schema = "financas", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_lancamento")
+    private Long idLancamento;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    /** Nulo nas escritas feitas fora de uma requisição autenticada. */
+    @Column(name = "id_autor")
+    private Long idAutor;
+
+    @Column(name = "removido")
+    private boolean removido;
+
+    @Column(name = "descricao")
+    private String descricao;
+
+    @Column(name = "mes")
+    private Integer mes;
+
+    @Column(name = "ano")
+    private Integer ano;
+
+    @Column(name = "valor")
+    private Dinheiro valor;
+
+    @Column(name = "tipo")
+    @Enumerated(value = EnumType.STRING)
+    private TipoLancamento tipo;
+
+    @Column(name = "status")
+    @Enumerated(value = EnumType.STRING)
+    private StatusLancamento status;
+
+    /** Versão do lançamento depois da escrita; 0 nos eventos anteriores a ela. */
+    @Column(name = "versao")
+    private long versao;
+
+    @Column(name = "registrado_em")
+    private LocalDateTime registradoEm;
+}
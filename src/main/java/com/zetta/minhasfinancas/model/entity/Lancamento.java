@@ -5,11 +5,12 @@ import com.zetta.minhasfinancas.model.enums.TipoLancamento;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
@@ -20,8 +21,14 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Lancamento {
 
+    /**
+     * Sequence com alocação em blocos (otimizador pooled): o Hibernate reserva
+     * 50 ids por chamada ao banco e consegue agrupar os inserts em lotes JDBC,
+     * o que não acontece com IDENTITY.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+    @SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", schema = "financas", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -35,12 +42,19 @@ public class Lancamento {
     private Integer ano;
 
     // Muitos lancamentos para um usuario
-    @ManyToOne
+    /**
+     * LAZY: as leituras usam projeções com l.usuario.id e as escritas só
+     * precisam da chave estrangeira. Fora do equals/toString para não
+     * inicializar o proxy.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Usuario usuario;
 
     @Column(name = "valor")
-    private BigDecimal valor;
+    private Dinheiro valor;
 
     @Column(name = "data_cadastro")
     @Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
@@ -53,4 +67,13 @@ public class Lancamento {
     @Column(name = "status")
     @Enumerated(value = EnumType.STRING)
     private StatusLancamento status;
+
+    /**
+     * Incrementada a cada escrita: pelo Hibernate no flush da entidade e
+     * pelos UPDATEs em lote do LancamentoRepository. Ordena os eventos de
+     * auditoria e do livro-caixa de um mesmo lançamento.
+     */
+    @Version
+    @Column(name = "versao")
+    private Long versao;
 }
@@ -0,0 +1,62 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+
+/**
+ * Total e quantidade de lançamentos por usuário, mês, tipo e status.
+ * Mantido pelo LancamentoService a cada escrita, para que relatórios por
+ * período leiam no máximo uma linha por mês/tipo/status em vez de somar
+ * os lançamentos.
+ */
+@Entity
+@Table( name = "resumo_mensal", schema = "financas" )
+@Data
+@NoArgsConstructor
+public class ResumoMensal implements Persistable<ResumoMensalId> {
+
+    @EmbeddedId
+    private ResumoMensalId id;
+
+    @Column(name = "quantidade")
+    private Long quantidade;
+
+    @Column(name = "total")
+    private Dinheiro total;
+
+    /**
+     * A chave é atribuída pela aplicação, então sem isso o save() faria um
+     * merge (SELECT antes do INSERT). Uma linha criada com new é sempre nova.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean gravado;
+
+    @Builder
+    public ResumoMensal(ResumoMensalId id, Long quantidade, Dinheiro total) {
+        this.id = id;
+        this.quantidade = quantidade;
+        this.total = total;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !gravado;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarComoGravado() {
+        gravado = true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Projeção materializada do saldo de cada usuário. É mantida pelo
+ * LancamentoService a cada escrita, então a consulta do saldo vira
+ * uma busca pela chave primária.
+ */
+@Entity
+@Table( name = "saldo_usuario", schema = "financas" )
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoUsuario {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "saldo")
+    private Dinheiro saldo;
+
+    /**
+     * Incrementada a cada escrita nos lançamentos do usuário, mesmo as que
+     * não mudam o saldo; é o ETag do saldo e da listagem de lançamentos.
+     */
+    @Column(name = "versao")
+    private Long versao;
+
+    public SaldoUsuario(Long idUsuario, Dinheiro saldo) {
+        this(idUsuario, saldo, 1l);
+    }
+}
@@ -1,12 +1,18 @@
 package com.zetta.minhasfinancas.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import java.util.Objects;
 
 @Entity
 @Table( name = "usuario", schema = "financas" )
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuario")
+@NaturalIdCache(region = "usuario-email")
 @Builder
 @Data
 @NoArgsConstructor
@@ -25,6 +31,11 @@ public class Usuario {
     @Column(name = "nome")
     private String nome;
 
+    /**
+     * Chave natural: a busca por email (UsuarioRepository.findByEmail)
+     * resolve o id pelo cache da região usuario-email.
+     */
+    @NaturalId
     @Column(name = "email")
     private String email;
 
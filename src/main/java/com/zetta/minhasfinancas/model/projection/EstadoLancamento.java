@@ -0,0 +1,51 @@
+package com.zetta.minhasfinancas.model.projection;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+
+/**
+ * Estado gravado de um lançamento, com apenas o que influencia o saldo
+ * e o resumo mensal.
+ */
+public interface EstadoLancamento {
+
+    Long getIdUsuario();
+
+    Integer getAno();
+
+    Integer getMes();
+
+    Dinheiro getValor();
+
+    TipoLancamento getTipo();
+
+    StatusLancamento getStatus();
+
+    Long getVersao();
+
+    static EstadoLancamento de(Lancamento lancamento) {
+        Long idUsuario = lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
+        return de(idUsuario, lancamento.getAno(), lancamento.getMes(),
+                lancamento.getValor(), lancamento.getTipo(), lancamento.getStatus(), lancamento.getVersao());
+    }
+
+    static EstadoLancamento comStatus(EstadoLancamento estado, StatusLancamento status) {
+        return de(estado.getIdUsuario(), estado.getAno(), estado.getMes(),
+                estado.getValor(), estado.getTipo(), status, estado.getVersao());
+    }
+
+    static EstadoLancamento de(Long idUsuario, Integer ano, Integer mes,
+            Dinheiro valor, TipoLancamento tipo, StatusLancamento status, Long versao) {
+        return new EstadoLancamento() {
+            public Long getIdUsuario() { return idUsuario; }
+            public Integer getAno() { return ano; }
+            public Integer getMes() { return mes; }
+            public Dinheiro getValor() { return valor; }
+            public TipoLancamento getTipo() { return tipo; }
+            public StatusLancamento getStatus() { return status; }
+            public Long getVersao() { return versao; }
+        };
+    }
+}
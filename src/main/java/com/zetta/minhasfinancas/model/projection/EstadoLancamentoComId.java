@@ -0,0 +1,9 @@
+package com.zetta.minhasfinancas.model.projection;
+
+/**
+ * Estado gravado de um lançamento junto com o id, para as operações em lote.
+ */
+public interface EstadoLancamentoComId extends EstadoLancamento {
+
+    Long getId();
+}
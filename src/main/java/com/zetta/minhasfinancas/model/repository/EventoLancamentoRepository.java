@@ -0,0 +1,43 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.EventoLancamento;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface EventoLancamentoRepository extends JpaRepository<EventoLancamento, Long> {
+
+    /**
+     * Ordem em que os eventos foram capturados: o momento e, no mesmo
+     * instante, o id, que cresce na ordem de gravação de cada instância.
+     */
+    String ORDEM = " order by e.registradoEm, e.id ";
+
+    /**
+     * Na ordem das versões do lançamento: o momento é capturado depois do
+     * commit, e duas escritas seguidas podem chegar invertidas.
+     */
+    @Query( " select e from EventoLancamento e where e.idLancamento = :idLancamento and e.idUsuario = :idUsuario "
+            + " order by e.versao, e.registradoEm, e.id " )
+    List<EventoLancamento> buscarHistorico(@Param("idLancamento") Long idLancamento, @Param("idUsuario") Long idUsuario);
+
+    /**
+     * Eventos do usuário registrados até o momento informado, lidos por
+     * cursor. Montados com select new, ficam fora do contexto de persistência
+     * e não acumulam em memória. Deve ser consumido dentro de uma transação.
+     */
+    @Query( " select new com.zetta.minhasfinancas.model.entity.EventoLancamento( "
+            + " e.id, e.idLancamento, e.idUsuario, e.idAutor, e.removido, e.descricao, "
+            + " e.mes, e.ano, e.valor, e.tipo, e.status, e.versao, e.registradoEm ) "
+            + " from EventoLancamento e where e.idUsuario = :idUsuario and e.registradoEm <= :ate "
+            + ORDEM )
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.FETCH_SIZE, value = "500"))
+    Stream<EventoLancamento> percorrer(@Param("idUsuario") Long idUsuario, @Param("ate") LocalDateTime ate);
+}
@@ -3,22 +3,144 @@ package com.zetta.minhasfinancas.model.repository;
 import com.zetta.minhasfinancas.model.entity.Lancamento;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
 import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.projection.EstadoLancamento;
+import com.zetta.minhasfinancas.model.projection.EstadoLancamentoComId;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, LancamentoRepositoryCustom {
     /**
      * Ao extender JpaRepository, o spring vai injetar a implementação dessa interface
      * em tempo de execução, então não precisa implementar nada
      */
+    /**
+     * Soma em centavos: o sum sobre um atributo Dinheiro volta como o tipo
+     * da coluna (bigint), sem passar pelo conversor. Filtra pela coluna
+     * id_usuario, sem join com usuario, que só existe no shard 0.
+     */
     @Query( value =
-            " select sum(l.valor) from Lancamento l join l.usuario u "
-                    + " where u.id = :idUsuario and l.tipo =:tipo and l.status=:status group by u " )
-    BigDecimal obterSaldoPorTipoLancamentoEUsuarioEStatus(
+            " select sum(l.valor) from Lancamento l "
+                    + " where l.usuario.id = :idUsuario and l.tipo =:tipo and l.status=:status " )
+    Long obterSaldoPorTipoLancamentoEUsuarioEStatus(
             @Param("idUsuario") Long idUsuario,
             @Param("tipo") TipoLancamento tipo,
             @Param("status") StatusLancamento status);
-}
\ No newline at end of file
+
+    /**
+     * Lê o estado que está no banco, mesmo que a entidade já tenha sido
+     * alterada em memória: o flush mode COMMIT impede que a consulta
+     * dispare o flush das alterações pendentes. A linha fica travada até o
+     * fim da transação, então a versão lida é a que a escrita vai incrementar.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( " select l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, "
+            + " l.valor as valor, l.tipo as tipo, l.status as status, l.versao as versao "
+            + " from Lancamento l where l.id = :id and l.usuario.id = :idUsuario " )
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.FLUSH_MODE, value = "COMMIT"))
+    Optional<EstadoLancamento> obterEstadoGravado(@Param("id") Long id, @Param("idUsuario") Long idUsuario);
+
+    /**
+     * O lançamento do usuário carregado com a linha travada até o fim da
+     * transação, para que duas alterações simultâneas não partam da mesma
+     * versão.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( " select l from Lancamento l where l.id = :id and l.usuario.id = :idUsuario " )
+    Optional<Lancamento> travar(@Param("id") Long id, @Param("idUsuario") Long idUsuario);
+
+    /**
+     * UPDATE direto, sem carregar a entidade, que também incrementa a versão.
+     * Retorna 0 se o lançamento não existe ou é de outro usuário.
+     */
+    @Modifying
+    @Query( " update Lancamento l set l.status = :status, l.versao = l.versao + 1 "
+            + " where l.id = :id and l.usuario.id = :idUsuario " )
+    int atualizarStatus(
+            @Param("id") Long id,
+            @Param("idUsuario") Long idUsuario,
+            @Param("status") StatusLancamento status);
+
+    String ESTADO_PARA_STATUS =
+            " select l.id as id, l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, "
+            + " l.valor as valor, l.tipo as tipo, l.status as status, l.versao as versao "
+            + " from Lancamento l where l.usuario.id = :idUsuario and l.status <> :status ";
+
+    /**
+     * Estado gravado dos lançamentos do usuário, entre os ids informados, que
+     * ainda não estão no status; as linhas ficam travadas (select ... for
+     * update) até o fim da transação, para que o UPDATE em lote e as
+     * diferenças aplicadas nas projeções vejam exatamente as mesmas linhas.
+     * As linhas são travadas em ordem de id, então dois lotes concorrentes
+     * com lançamentos em comum esperam um pelo outro em vez de entrar em
+     * deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( ESTADO_PARA_STATUS + " and l.id in :ids order by l.id " )
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.FLUSH_MODE, value = "COMMIT"))
+    List<EstadoLancamentoComId> travarParaStatus(
+            @Param("idUsuario") Long idUsuario,
+            @Param("ids") Collection<Long> ids,
+            @Param("status") StatusLancamento status);
+
+    /**
+     * Como o anterior, selecionando pelo filtro de ano, mês e tipo (nulos
+     * não filtram).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( ESTADO_PARA_STATUS
+            + " and (:ano is null or l.ano = :ano) and (:mes is null or l.mes = :mes) "
+            + " and (:tipo is null or l.tipo = :tipo) order by l.id " )
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.FLUSH_MODE, value = "COMMIT"))
+    List<EstadoLancamentoComId> travarParaStatus(
+            @Param("idUsuario") Long idUsuario,
+            @Param("ano") Integer ano,
+            @Param("mes") Integer mes,
+            @Param("tipo") TipoLancamento tipo,
+            @Param("status") StatusLancamento status);
+
+    @Modifying
+    @Query( " update Lancamento l set l.status = :status, l.versao = l.versao + 1 where l.id in :ids " )
+    int atualizarStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") StatusLancamento status);
+
+    @Modifying
+    @Query( " delete from Lancamento l where l.id = :id and l.usuario.id = :idUsuario " )
+    int remover(@Param("id") Long id, @Param("idUsuario") Long idUsuario);
+
+    /**
+     * Os campos que o livro-caixa em memória guarda de cada lançamento do
+     * usuário, como [id, valor, ano, mes, tipo, status, versao], lidos por
+     * cursor. Deve ser consumido dentro de uma transação.
+     */
+    @Query( " select l.id, l.valor, l.ano, l.mes, l.tipo, l.status, l.versao from Lancamento l "
+            + " where l.usuario.id = :idUsuario " )
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.FETCH_SIZE, value = "500"))
+    Stream<Object[]> percorrerParaLivroCaixa(@Param("idUsuario") Long idUsuario);
+
+    /**
+     * Saldo de todos os usuários que possuem lançamentos efetivados,
+     * como pares [id do usuário, saldo em centavos]. Usado na reconciliação
+     * da tabela saldo_usuario.
+     */
+    @Query( " select l.usuario.id, sum(case when l.tipo = :receita then l.valor else -l.valor end) "
+            + " from Lancamento l where l.status = :status group by l.usuario.id " )
+    List<Object[]> obterSaldosPorUsuario(
+            @Param("receita") TipoLancamento receita,
+            @Param("status") StatusLancamento status);
+}
@@ -0,0 +1,46 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface LancamentoRepositoryCustom {
+
+    /**
+     * Caractere de escape do like na descrição: o termo informado deve vir
+     * com %, _ e o próprio escape precedidos dele (ver
+     * LancamentoFiltro.getPadraoDescricao).
+     */
+    char ESCAPE_DESCRICAO = '!';
+
+    void inserirEmLote(List<Lancamento> lancamentos);
+
+    /**
+     * Lançamentos do usuário por igualdade em ano, mês, tipo e status e pelo
+     * padrão like da descrição, em ordem de (ano, mes, id). Critérios nulos,
+     * e a descrição "%", ficam fora da consulta.
+     */
+    List<LancamentoDTO> buscar(Long idUsuario, Integer ano, Integer mes,
+                               TipoLancamento tipo, StatusLancamento status, String descricao);
+
+    /**
+     * Paginação por keyset em (ano, mes, id): a página seguinte começa depois
+     * da última linha devolvida, então o custo não cresce com o número da página.
+     * O tamanho da página vem do Pageable.
+     */
+    List<LancamentoDTO> buscarPagina(Long idUsuario, Integer ano, Integer mes,
+                                     TipoLancamento tipo, StatusLancamento status, String descricao,
+                                     Integer anoCursor, Integer mesCursor, Long idCursor, Pageable limite);
+
+    /**
+     * Mesmo filtro da paginação, mas lido por um cursor JDBC que avança aos
+     * poucos (fetch size). Deve ser consumido dentro de uma transação.
+     */
+    Stream<LancamentoDTO> percorrer(Long idUsuario, Integer ano, Integer mes,
+                                    TipoLancamento tipo, StatusLancamento status, String descricao);
+}
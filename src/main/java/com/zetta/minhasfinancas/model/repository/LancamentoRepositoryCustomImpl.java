@@ -0,0 +1,122 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class LancamentoRepositoryCustomImpl implements LancamentoRepositoryCustom {
+
+    private static final String PROJECAO_DTO =
+            " select new com.zetta.minhasfinancas.api.dto.LancamentoDTO( "
+            + " l.id, l.descricao, l.mes, l.ano, l.valor, l.usuario.id, l.tipo, l.status) "
+            + " from Lancamento l where l.usuario.id = :idUsuario ";
+
+    private static final String ORDEM = " order by l.ano, l.mes, l.id ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int tamanhoLote;
+
+    /**
+     * Insere os lançamentos em lotes JDBC do tamanho configurado no Hibernate.
+     * A cada lote o contexto de persistência é descarregado e limpo, então a
+     * memória não cresce com o tamanho da importação. Os lançamentos ficam
+     * desanexados depois da chamada.
+     */
+    @Override
+    public void inserirEmLote(List<Lancamento> lancamentos) {
+        for (int i = 0; i < lancamentos.size(); i++) {
+            entityManager.persist(lancamentos.get(i));
+            if ((i + 1) % tamanhoLote == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public List<LancamentoDTO> buscar(Long idUsuario, Integer ano, Integer mes,
+                                      TipoLancamento tipo, StatusLancamento status, String descricao) {
+        return new Filtro(idUsuario, ano, mes, tipo, status, descricao).consulta(ORDEM).getResultList();
+    }
+
+    @Override
+    public List<LancamentoDTO> buscarPagina(Long idUsuario, Integer ano, Integer mes,
+                                            TipoLancamento tipo, StatusLancamento status, String descricao,
+                                            Integer anoCursor, Integer mesCursor, Long idCursor, Pageable limite) {
+        Filtro filtro = new Filtro(idUsuario, ano, mes, tipo, status, descricao);
+        filtro.jpql.append(" and (l.ano > :anoCursor or (l.ano = :anoCursor and ")
+                .append("     (l.mes > :mesCursor or (l.mes = :mesCursor and l.id > :idCursor)))) ");
+        filtro.parametros.put("anoCursor", anoCursor);
+        filtro.parametros.put("mesCursor", mesCursor);
+        filtro.parametros.put("idCursor", idCursor);
+        return filtro.consulta(ORDEM)
+                .setFirstResult((int) limite.getOffset())
+                .setMaxResults(limite.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public Stream<LancamentoDTO> percorrer(Long idUsuario, Integer ano, Integer mes,
+                                           TipoLancamento tipo, StatusLancamento status, String descricao) {
+        return new Filtro(idUsuario, ano, mes, tipo, status, descricao).consulta(ORDEM)
+                .setHint(QueryHints.FETCH_SIZE, 500)
+                .getResultStream();
+    }
+
+    /**
+     * Filtro comum às buscas, montado só com os critérios informados: sem os
+     * "(:ano is null or ...)", o PostgreSQL consegue reaproveitar um plano
+     * genérico por combinação de critérios e sempre enxerga as igualdades
+     * que usam os índices (id_usuario, ano, mes) e (id_usuario, tipo,
+     * status). O termo da descrição é atendido pelo índice de trigramas em
+     * lower(descricao).
+     */
+    private class Filtro {
+
+        private final StringBuilder jpql = new StringBuilder(PROJECAO_DTO);
+        private final Map<String, Object> parametros = new LinkedHashMap<>();
+
+        Filtro(Long idUsuario, Integer ano, Integer mes,
+               TipoLancamento tipo, StatusLancamento status, String descricao) {
+            parametros.put("idUsuario", idUsuario);
+            igual("ano", ano);
+            igual("mes", mes);
+            igual("tipo", tipo);
+            igual("status", status);
+            if (descricao != null && !descricao.equals("%")) {
+                jpql.append(" and lower(l.descricao) like :descricao escape '").append(ESCAPE_DESCRICAO).append("' ");
+                parametros.put("descricao", descricao);
+            }
+        }
+
+        private void igual(String atributo, Object valor) {
+            if (valor != null) {
+                jpql.append(" and l.").append(atributo).append(" = :").append(atributo).append(' ');
+                parametros.put(atributo, valor);
+            }
+        }
+
+        TypedQuery<LancamentoDTO> consulta(String ordem) {
+            TypedQuery<LancamentoDTO> consulta = entityManager.createQuery(jpql + ordem, LancamentoDTO.class);
+            parametros.forEach(consulta::setParameter);
+            return consulta;
+        }
+    }
+}
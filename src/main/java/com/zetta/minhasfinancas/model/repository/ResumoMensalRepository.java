@@ -0,0 +1,60 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.ResumoMensal;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensalId> {
+
+    /**
+     * Soma as diferenças direto no banco. Retorna 0 quando a linha do
+     * mês/tipo/status ainda não existe.
+     */
+    @Modifying
+    @Query( " update ResumoMensal r set r.quantidade = r.quantidade + :quantidade, r.total = r.total + :valor "
+            + " where r.id = :id " )
+    int somar(
+            @Param("id") ResumoMensalId id,
+            @Param("quantidade") long quantidade,
+            @Param("valor") Dinheiro valor);
+
+    @Query( " select r from ResumoMensal r where r.id.idUsuario = :idUsuario "
+            + " and r.id.ano between :deAno and :ateAno and r.quantidade > 0 "
+            + " order by r.id.ano, r.id.mes, r.id.tipo, r.id.status " )
+    List<ResumoMensal> buscarPorPeriodo(
+            @Param("idUsuario") Long idUsuario,
+            @Param("deAno") Integer deAno,
+            @Param("ateAno") Integer ateAno);
+
+    @Modifying
+    @Query( " delete from ResumoMensal r where (:idUsuario is null or r.id.idUsuario = :idUsuario) " )
+    void remover(@Param("idUsuario") Long idUsuario);
+
+    String INSERIR_A_PARTIR_DOS_LANCAMENTOS =
+            " insert into financas.resumo_mensal (id_usuario, ano, mes, tipo, status, quantidade, total) "
+            + " select l.id_usuario, l.ano, l.mes, l.tipo, l.status, count(*), sum(l.valor) "
+            + " from financas.lancamento l "
+            + " where l.id_usuario is not null and l.ano is not null and l.mes is not null "
+            + " and l.tipo is not null and l.status is not null ";
+
+    String AGRUPAMENTO = " group by l.id_usuario, l.ano, l.mes, l.tipo, l.status ";
+
+    /**
+     * Preenche o resumo do usuário a partir dos lançamentos em um único
+     * insert ... select.
+     */
+    @Modifying
+    @Query( value = INSERIR_A_PARTIR_DOS_LANCAMENTOS + " and l.id_usuario = :idUsuario " + AGRUPAMENTO,
+            nativeQuery = true )
+    int inserirAPartirDosLancamentos(@Param("idUsuario") Long idUsuario);
+
+    @Modifying
+    @Query( value = INSERIR_A_PARTIR_DOS_LANCAMENTOS + AGRUPAMENTO, nativeQuery = true )
+    int inserirTodosAPartirDosLancamentos();
+}
@@ -0,0 +1,45 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.SaldoUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long>, SaldoUsuarioRepositoryCustom {
+
+    /**
+     * Soma a diferença direto no banco, sem carregar a linha, para que
+     * escritas concorrentes do mesmo usuário não percam atualizações, e
+     * incrementa a versão. Retorna 0 quando o usuário ainda não tem linha de saldo.
+     */
+    @Modifying
+    @Query( " update SaldoUsuario s set s.saldo = s.saldo + :diferenca, s.versao = s.versao + 1 " +
+            " where s.idUsuario = :idUsuario " )
+    int somarAoSaldo(
+            @Param("idUsuario") Long idUsuario,
+            @Param("diferenca") Dinheiro diferenca);
+
+    /**
+     * Linhas de saldo travadas (select ... for update) até o fim da transação.
+     * Quem recalcula o saldo trava antes de somar os lançamentos: uma escrita
+     * confirmada antes disso entra na soma, e as que vierem depois esperam
+     * a trava no somarAoSaldo e aplicam a diferença sobre o valor corrigido.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( " select s from SaldoUsuario s " )
+    List<SaldoUsuario> travarTodos();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( " select s from SaldoUsuario s where s.idUsuario = :idUsuario " )
+    Optional<SaldoUsuario> travar( @Param("idUsuario") Long idUsuario );
+
+    @Query( " select s.versao from SaldoUsuario s where s.idUsuario = :idUsuario " )
+    Optional<Long> obterVersao( @Param("idUsuario") Long idUsuario );
+}
@@ -0,0 +1,13 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+public interface SaldoUsuarioRepositoryCustom {
+
+    /**
+     * Cria a linha de saldo do usuário com versão 1, a não ser que ela já
+     * exista. Retorna 0 quando outra transação criou a linha antes; nesse
+     * caso nada é gravado e a transação continua válida.
+     */
+    int inserirSeAusente(Long idUsuario, Dinheiro saldo);
+}
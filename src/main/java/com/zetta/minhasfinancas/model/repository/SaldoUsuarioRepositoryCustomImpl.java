@@ -0,0 +1,44 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.SaldoUsuario;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Insert que tolera a chave duplicada sem abortar a transação: no
+ * PostgreSQL um insert que falha invalida a transação inteira, então
+ * capturar a violação da chave primária não serve. O PostgreSQL usa
+ * "on conflict do nothing"; os demais bancos (o H2 dos testes), o merge
+ * do SQL padrão.
+ */
+public class SaldoUsuarioRepositoryCustomImpl implements SaldoUsuarioRepositoryCustom {
+
+    private static final String INSERIR_POSTGRESQL =
+            " insert into financas.saldo_usuario (id_usuario, saldo, versao) "
+            + " values (:idUsuario, :saldo, 1) on conflict (id_usuario) do nothing ";
+
+    private static final String INSERIR_PADRAO =
+            " merge into financas.saldo_usuario s "
+            + " using (select cast(:idUsuario as bigint) as id_usuario, cast(:saldo as bigint) as saldo) n "
+            + " on s.id_usuario = n.id_usuario "
+            + " when not matched then insert (id_usuario, saldo, versao) values (n.id_usuario, n.saldo, 1) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int inserirSeAusente(Long idUsuario, Dinheiro saldo) {
+        Session sessao = entityManager.unwrap(Session.class);
+        String banco = sessao.doReturningWork(conexao -> conexao.getMetaData().getDatabaseProductName());
+        return sessao.createNativeQuery("PostgreSQL".equals(banco) ? INSERIR_POSTGRESQL : INSERIR_PADRAO)
+                // só a tabela saldo_usuario muda: o resto do cache de segundo nível continua valendo
+                .addSynchronizedEntityClass(SaldoUsuario.class)
+                .setParameter("idUsuario", idUsuario)
+                .setParameter("saldo", saldo.getCentavos())
+                .executeUpdate();
+    }
+}
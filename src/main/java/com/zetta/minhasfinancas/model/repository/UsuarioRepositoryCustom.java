@@ -0,0 +1,20 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Usuario;
+
+import java.util.Optional;
+
+public interface UsuarioRepositoryCustom {
+
+    /** Spring query methods
+     *  podia ser findByNome(String ome);
+     *  ou findByEmailAndNome(String email, String nome);
+     */
+    Optional<Usuario> findByEmail(String email);
+
+    /**
+     * select * from usuario where exists e vai procurar usuario
+     * com esse email.
+     */
+    boolean existsByEmail(String email);
+}
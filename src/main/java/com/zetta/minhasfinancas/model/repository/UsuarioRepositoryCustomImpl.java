@@ -0,0 +1,41 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+/**
+ * Buscas por email pela chave natural (Session.bySimpleNaturalId): o id vem
+ * da região usuario-email e a entidade da região usuario, então um usuário
+ * já lido não volta ao banco. Só o email inexistente consulta o banco.
+ *
+ * Sem readOnly de propósito, para ler sempre do primário quando há réplicas
+ * (RoteamentoDataSource): o cadastro confere o email com existsByEmail e o
+ * login logo depois do cadastro ainda não tem usuário autenticado para o
+ * read-your-writes.
+ */
+@Transactional
+public class UsuarioRepositoryCustomImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Usuario.class)
+                .loadOptional(email);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return findByEmail(email).isPresent();
+    }
+}
@@ -0,0 +1,28 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.HistoricoLancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Registro de auditoria das escritas confirmadas nos lançamentos, gravado
+ * em segundo plano na tabela evento_lancamento (ver
+ * AuditoriaLancamentoServiceImpl).
+ */
+public interface AuditoriaLancamentoService {
+
+    /** Do mais antigo para o mais recente. */
+    List<HistoricoLancamentoDTO> obterHistorico(Long idLancamento, Long idUsuario);
+
+    /**
+     * Saldo do usuário refeito a partir do registro, com as escritas
+     * registradas até o momento informado. Lançamentos sem nenhuma escrita
+     * desde que o registro existe não entram na conta.
+     */
+    Dinheiro reconstruirSaldo(Long idUsuario, LocalDateTime ate);
+
+    /** Grava agora tudo o que ainda está na fila. */
+    void descarregar();
+}
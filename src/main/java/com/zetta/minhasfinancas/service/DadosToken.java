@@ -0,0 +1,22 @@
+package com.zetta.minhasfinancas.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * O que o filtro precisa de um token já verificado: o login (subject)
+ * e o instante em que ele expira.
+ */
+@Getter
+@AllArgsConstructor
+public class DadosToken {
+
+    private String login;
+    private Instant expiracao;
+
+    public boolean isExpirado() {
+        return !Instant.now().isBefore(expiracao);
+    }
+}
@@ -0,0 +1,11 @@
+package com.zetta.minhasfinancas.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface EventosUsuarioService {
+
+    /**
+     * Abre um stream SSE com as alterações nos lançamentos do usuário.
+     */
+    SseEmitter inscrever(Long idUsuario);
+}
@@ -0,0 +1,11 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+
+import java.util.List;
+
+public interface ImportacaoLancamentoService {
+
+    ResultadoImportacaoDTO importar(Long idUsuario, List<LancamentoDTO> lancamentos);
+}
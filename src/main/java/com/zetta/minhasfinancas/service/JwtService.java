@@ -4,12 +4,16 @@ import com.zetta.minhasfinancas.model.entity.Usuario;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 
+import java.util.Optional;
+
 public interface JwtService {
 
     String gerarToken(Usuario usuario);
 
     Claims obterClaims(String token) throws ExpiredJwtException;
 
+    Optional<DadosToken> validarToken(String token);
+
     boolean isTokenValido(String token);
 
     String obterLoginUsuario(String token);
@@ -0,0 +1,21 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publicado pelo LancamentoService dentro da transação de cada escrita; os
+ * ouvintes usam @TransactionalEventListener para só reagir depois do commit.
+ * Como os ouvintes de transações diferentes podem rodar em qualquer ordem,
+ * a versão que a escrita deixou no lançamento diz qual evento é o mais novo.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LancamentoAlteradoEvent {
+
+    private final Long idUsuario;
+    private final LancamentoDTO lancamento;
+    private final boolean removido;
+    private final long versao;
+}
@@ -0,0 +1,46 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryCustom;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Critérios da busca de lançamentos. Usuário, ano, mês, tipo e status são
+ * comparados por igualdade (campos nulos não filtram); a descrição é um
+ * termo procurado em qualquer parte do texto, sem diferenciar maiúsculas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoFiltro {
+
+    private Long idUsuario;
+    private Integer ano;
+    private Integer mes;
+    private TipoLancamento tipo;
+    private StatusLancamento status;
+    private String descricao;
+
+    /**
+     * Termo da descrição no formato do like (%termo%), ou apenas %
+     * quando não há termo, para a consulta nunca receber nulo. %, _ e o
+     * caractere de escape digitados no termo valem como texto, não como
+     * curinga.
+     */
+    public String getPadraoDescricao() {
+        if (descricao == null || descricao.trim().isEmpty()) {
+            return "%";
+        }
+        String escape = String.valueOf(LancamentoRepositoryCustom.ESCAPE_DESCRICAO);
+        String termo = descricao.trim().toLowerCase()
+                .replace(escape, escape + escape)
+                .replace("%", escape + "%")
+                .replace("_", escape + "_");
+        return "%" + termo + "%";
+    }
+}
@@ -1,23 +1,49 @@
 package com.zetta.minhasfinancas.service;
 
+import com.zetta.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.PaginaLancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
 import com.zetta.minhasfinancas.model.entity.Lancamento;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LancamentoService {
 
     Lancamento salvar(Lancamento lancamento);
-    Lancamento atualizar(Lancamento lancamento);
-    void deletar(Lancamento lancamento);
-    List<Lancamento> buscar(Lancamento lancamentoFiltro);
-    void atualizarStatus(Lancamento lancamento, StatusLancamento status);
+    List<LancamentoDTO> buscar(LancamentoFiltro filtro);
+    PaginaLancamentoDTO buscarPagina(LancamentoFiltro filtro, String cursor, int limite);
+    void percorrer(LancamentoFiltro filtro, Consumer<LancamentoDTO> consumidor);
+
+    /*
+     * As escritas são por id: só alteram lançamentos do usuário informado e
+     * lançam RegraNegocioException quando o lançamento não existe ou é de
+     * outro usuário.
+     */
+    Lancamento atualizar(Long id, Long idUsuario, LancamentoDTO dados);
+    void atualizarStatus(Long id, Long idUsuario, StatusLancamento status);
+
+    /**
+     * Muda o status de vários lançamentos do usuário (pelos ids ou pelo
+     * filtro de ano, mês e tipo) com um único UPDATE e devolve quantos mudaram.
+     */
+    int atualizarStatus(Long idUsuario, AtualizaStatusLoteDTO dados);
+    void deletar(Long id, Long idUsuario);
 
     void validar(Lancamento lancamento);
 
     Optional<Lancamento> obterPorId(Long id);
 
-    BigDecimal obterSaldoPorUsuario(Long id);
+    Dinheiro obterSaldoPorUsuario(Long id);
+
+    /**
+     * Muda a cada escrita nos lançamentos do usuário (ver SaldoUsuarioService).
+     */
+    long obterVersaoPorUsuario(Long id);
+
+    List<ResumoMensalDTO> obterResumoMensal(Long idUsuario, Integer deAno, Integer ateAno);
 }
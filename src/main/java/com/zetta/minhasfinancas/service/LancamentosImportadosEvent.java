@@ -0,0 +1,20 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Publicado pela importação em lote, que grava os lançamentos sem passar
+ * pelo LancamentoService e por isso não gera um LancamentoAlteradoEvent
+ * por lançamento. Traz os lançamentos gravados, já com os ids.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LancamentosImportadosEvent {
+
+    private final Long idUsuario;
+    private final List<LancamentoDTO> lancamentos;
+}
@@ -0,0 +1,30 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+import java.util.List;
+
+/**
+ * Saldo e resumo mensal calculados em memória a partir dos lançamentos do
+ * usuário (ver LivroCaixaServiceImpl), como alternativa às projeções
+ * saldo_usuario e resumo_mensal.
+ */
+public interface LivroCaixaService {
+
+    /**
+     * livro-caixa.habilitado: se o LancamentoService deve consultar o saldo e
+     * o resumo aqui em vez das projeções.
+     */
+    boolean isHabilitado();
+
+    Dinheiro obterSaldo(Long idUsuario);
+
+    List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer deAno, Integer ateAno);
+
+    /**
+     * Tira o usuário da memória; a próxima consulta carrega de novo do banco.
+     * Necessário depois de escritas que não passam pelo LancamentoService.
+     */
+    void descartar(Long idUsuario);
+}
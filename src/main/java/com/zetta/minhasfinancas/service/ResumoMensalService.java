@@ -0,0 +1,18 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
+
+import java.util.List;
+
+public interface ResumoMensalService {
+
+    void aplicarDiferenca(ResumoMensalId id, long quantidade, Dinheiro valor);
+
+    List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer deAno, Integer ateAno);
+
+    void reconstruir(Long idUsuario);
+
+    void reconstruirTodos();
+}
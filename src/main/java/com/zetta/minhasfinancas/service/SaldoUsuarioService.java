@@ -0,0 +1,24 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+
+public interface SaldoUsuarioService {
+
+    /**
+     * Também incrementa a versão do usuário, inclusive com diferença zero:
+     * toda escrita nos lançamentos deve passar por aqui.
+     */
+    void aplicarDiferenca(Long idUsuario, Dinheiro diferenca);
+
+    Dinheiro obterSaldo(Long idUsuario);
+
+    /**
+     * Versão dos lançamentos do usuário (0 enquanto ele não tiver nenhuma
+     * escrita registrada), usada como ETag nas consultas.
+     */
+    long obterVersao(Long idUsuario);
+
+    Dinheiro reconstruirSaldo(Long idUsuario);
+
+    void reconciliar();
+}
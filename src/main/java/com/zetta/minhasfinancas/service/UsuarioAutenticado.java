@@ -0,0 +1,23 @@
+package com.zetta.minhasfinancas.service;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Usuário da requisição (principal do Spring Security), com o id para que
+ * os endpoints restrinjam as escritas aos lançamentos do próprio usuário
+ * sem consultar o banco.
+ */
+@Getter
+public class UsuarioAutenticado extends User {
+
+    private final Long id;
+
+    public UsuarioAutenticado(Long id, String email, String senha, Collection<? extends GrantedAuthority> autorizacoes) {
+        super(email, senha, autorizacoes);
+        this.id = id;
+    }
+}
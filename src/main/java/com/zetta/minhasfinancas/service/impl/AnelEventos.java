@@ -0,0 +1,97 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fila circular de capacidade fixa, sem locks, com vários produtores e um
+ * consumidor por vez (fila limitada de Vyukov). Cada posição tem um número
+ * de sequência que diz se ela está livre para a volta atual dos produtores
+ * (sequência == posição) ou com um item publicado para o consumidor
+ * (sequência == posição + 1). O produtor reserva a posição com um CAS no
+ * contador de escrita e só depois publica a sequência, então o consumidor
+ * nunca lê um item pela metade.
+ *
+ * Quem consome precisa garantir que só uma thread drena de cada vez.
+ */
+final class AnelEventos<T> {
+
+    private final int capacidade;
+    private final int mascara;
+    private final AtomicReferenceArray<T> itens;
+    private final AtomicLongArray sequencias;
+    private final AtomicLong escrita = new AtomicLong();
+    private final AtomicLong leitura = new AtomicLong();
+
+    /** A capacidade é arredondada para a próxima potência de dois. */
+    AnelEventos(int capacidade) {
+        if (capacidade < 1 || capacidade > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        int potencia = Integer.highestOneBit(capacidade);
+        this.capacidade = potencia < capacidade ? potencia << 1 : potencia;
+        this.mascara = this.capacidade - 1;
+        this.itens = new AtomicReferenceArray<>(this.capacidade);
+        this.sequencias = new AtomicLongArray(this.capacidade);
+        for (int i = 0; i < this.capacidade; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /** Devolve false, sem esperar, se a fila estiver cheia. */
+    boolean oferecer(T item) {
+        long posicao = escrita.get();
+        while (true) {
+            int indice = (int) posicao & mascara;
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (escrita.compareAndSet(posicao, posicao + 1)) {
+                    itens.set(indice, item);
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+                posicao = escrita.get();
+            } else if (diferenca < 0) {
+                // a posição ainda guarda o item da volta anterior
+                return false;
+            } else {
+                // outro produtor reservou esta posição; tenta a seguinte
+                posicao = escrita.get();
+            }
+        }
+    }
+
+    /**
+     * Entrega ao consumidor, na ordem, até maximo itens já publicados e
+     * libera as posições para a próxima volta. Devolve quantos entregou.
+     */
+    int drenar(Consumer<T> consumidor, int maximo) {
+        int entregues = 0;
+        long posicao = leitura.get();
+        while (entregues < maximo) {
+            int indice = (int) posicao & mascara;
+            if (sequencias.get(indice) != posicao + 1) {
+                break;
+            }
+            T item = itens.get(indice);
+            itens.set(indice, null);
+            sequencias.set(indice, posicao + capacidade);
+            posicao++;
+            leitura.set(posicao);
+            consumidor.accept(item);
+            entregues++;
+        }
+        return entregues;
+    }
+
+    /** Aproximado quando há produtores ativos. */
+    int tamanho() {
+        return (int) Math.max(0, escrita.get() - leitura.get());
+    }
+
+    int getCapacidade() {
+        return capacidade;
+    }
+}
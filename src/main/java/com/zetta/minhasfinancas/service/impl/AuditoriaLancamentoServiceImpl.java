@@ -0,0 +1,380 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.HistoricoLancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.config.MapaShards;
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.EventoLancamento;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.EventoLancamentoRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.LancamentosImportadosEvent;
+import com.zetta.minhasfinancas.service.UsuarioAutenticado;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Registro de auditoria gravado em segundo plano. Depois do commit de cada
+ * escrita (AFTER_COMMIT), a thread de quem escreveu só monta o evento e o
+ * põe num AnelEventos, sem nenhum INSERT no caminho da requisição. A thread
+ * "auditoria-lancamentos" drena o anel em lotes de auditoria.lote e grava
+ * cada lote com um saveAll por shard, numa transação própria.
+ *
+ * A memória é limitada pela capacidade do anel: cheio, quem escreveu acorda
+ * a gravação e espera até auditoria.espera-maxima; passado isso o evento é
+ * descartado, contado em financas.auditoria.descartados e logado como erro.
+ * Um lote que falha continua em mãos e é gravado de novo, com espera
+ * crescente. Ao desligar (stop, depois que o servidor web parou de receber
+ * requisições), a thread para e o que restou é gravado antes de o
+ * DataSource fechar.
+ */
+@Slf4j
+@Service
+public class AuditoriaLancamentoServiceImpl implements AuditoriaLancamentoService, SmartLifecycle, MeterBinder {
+
+    private static final long ESPERA_MAXIMA_ENTRE_TENTATIVAS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AnelEventos<EventoLancamento> anel;
+
+    /**
+     * Drenado do anel e ainda não gravado (sobra de uma falha). Só é usado
+     * com a trava de gravação, que também impede a thread e o descarregar
+     * de gravarem ao mesmo tempo.
+     */
+    private final List<EventoLancamento> emMaos = new ArrayList<>();
+    private final ReentrantLock gravacao = new ReentrantLock();
+    private final AtomicLong descartados = new AtomicLong();
+
+    private EventoLancamentoRepository repository;
+    private MapaShards mapaShards;
+    private TransactionTemplate transacaoDeGravacao;
+    private TransactionTemplate transacaoDeLeitura;
+
+    private volatile Thread escritor;
+
+    @Value("${auditoria.lote:500}")
+    private int tamanhoLote;
+
+    @Value("${auditoria.intervalo-ms:200}")
+    private long intervaloMs;
+
+    @Value("${auditoria.espera-maxima:1s}")
+    private Duration esperaMaxima;
+
+    public AuditoriaLancamentoServiceImpl(
+            EventoLancamentoRepository repository,
+            MapaShards mapaShards,
+            PlatformTransactionManager transactionManager,
+            @Value("${auditoria.capacidade:65536}") int capacidade) {
+        this.repository = repository;
+        this.mapaShards = mapaShards;
+        this.anel = new AnelEventos<>(capacidade);
+        this.transacaoDeGravacao = new TransactionTemplate(transactionManager);
+        this.transacaoDeGravacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // não é readOnly para ler do primário quando há réplicas
+        // (RoteamentoDataSource): o que acabou de ser descarregado pode ainda
+        // não ter chegado a uma réplica atrasada.
+        this.transacaoDeLeitura = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarLancamento(LancamentoAlteradoEvent evento) {
+        enfileirar(evento(evento.getLancamento(), evento.getIdUsuario(), evento.isRemovido(),
+                evento.getVersao(), autenticado(), LocalDateTime.now()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoImportarLancamentos(LancamentosImportadosEvent evento) {
+        Long autor = autenticado();
+        LocalDateTime agora = LocalDateTime.now();
+        for (LancamentoDTO lancamento : evento.getLancamentos()) {
+            enfileirar(evento(lancamento, evento.getIdUsuario(), false, 0, autor, agora));
+        }
+    }
+
+    @Override
+    public List<HistoricoLancamentoDTO> obterHistorico(Long idLancamento, Long idUsuario) {
+        descarregar();
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            return transacaoDeLeitura.execute(status -> repository.buscarHistorico(idLancamento, idUsuario)
+                    .stream()
+                    .map(AuditoriaLancamentoServiceImpl::historico)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Percorre os eventos na ordem em que foram registrados, guardando o
+     * efeito no saldo do estado de maior versão de cada lançamento (zero se
+     * removido ou não efetivado), e soma os efeitos.
+     */
+    @Override
+    public Dinheiro reconstruirSaldo(Long idUsuario, LocalDateTime ate) {
+        descarregar();
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            // por lançamento, {versão, efeito} do último estado
+            Map<Long, long[]> efeitos = transacaoDeLeitura.execute(status -> {
+                Map<Long, long[]> porLancamento = new HashMap<>();
+                try (Stream<EventoLancamento> eventos = repository.percorrer(idUsuario, ate)) {
+                    // no empate de versão fica o registrado por último, como antes da versão existir
+                    eventos.forEach(evento -> porLancamento.merge(evento.getIdLancamento(),
+                            new long[] { evento.getVersao(), efeitoNoSaldo(evento) },
+                            (guardado, novo) -> novo[0] >= guardado[0] ? novo : guardado));
+                }
+                return porLancamento;
+            });
+            long centavos = 0;
+            for (long[] efeito : efeitos.values()) {
+                centavos += efeito[1];
+            }
+            return Dinheiro.deCentavos(centavos);
+        }
+    }
+
+    /**
+     * Também o que a thread de gravação tem em mãos. Se a gravação falhar, a
+     * exceção sobe e nada se perde: o lote fica para a próxima tentativa.
+     */
+    @Override
+    public void descarregar() {
+        gravacao.lock();
+        try {
+            while (gravarProximoLote() > 0) {
+                // até esvaziar o anel
+            }
+        } finally {
+            gravacao.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::executar, "auditoria-lancamentos");
+        thread.setDaemon(true);
+        escritor = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = escritor;
+        escritor = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        try {
+            descarregar();
+        } catch (RuntimeException e) {
+            log.error("Não foi possível gravar {} eventos de auditoria ao desligar.", pendentes(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return escritor != null;
+    }
+
+    /**
+     * Fase 0: para depois do servidor web (que para antes, numa fase maior),
+     * quando não chegam mais escritas.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("financas.auditoria.pendentes", this, servico -> servico.pendentes())
+                .description("Eventos de auditoria ainda não gravados")
+                .register(registry);
+        FunctionCounter.builder("financas.auditoria.descartados", descartados, AtomicLong::get)
+                .description("Eventos de auditoria descartados com a fila cheia")
+                .register(registry);
+    }
+
+    int pendentes() {
+        return anel.tamanho() + emMaos.size();
+    }
+
+    long contarDescartados() {
+        return descartados.get();
+    }
+
+    private void executar() {
+        int falhas = 0;
+        while (escritor == Thread.currentThread()) {
+            int gravados = 0;
+            gravacao.lock();
+            try {
+                gravados = gravarProximoLote();
+                falhas = 0;
+            } catch (RuntimeException e) {
+                falhas++;
+                log.warn("Falha ao gravar {} eventos de auditoria (tentativa {}); o lote será gravado de novo.",
+                        emMaos.size(), falhas, e);
+            } finally {
+                gravacao.unlock();
+            }
+            if (falhas > 0) {
+                LockSupport.parkNanos(Math.min(
+                        TimeUnit.MILLISECONDS.toNanos(intervaloMs) << Math.min(falhas, 16), ESPERA_MAXIMA_ENTRE_TENTATIVAS));
+            } else if (gravados < tamanhoLote) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(intervaloMs));
+            }
+        }
+    }
+
+    /**
+     * Com a trava: grava o lote em mãos ou, não havendo, o próximo do anel.
+     * Devolve quantos eventos gravou.
+     */
+    private int gravarProximoLote() {
+        if (emMaos.isEmpty()) {
+            anel.drenar(emMaos::add, tamanhoLote);
+        }
+        int quantidade = emMaos.size();
+        if (quantidade > 0) {
+            gravar(emMaos);
+        }
+        return quantidade;
+    }
+
+    /**
+     * Um saveAll por shard; os eventos dos shards já confirmados saem da
+     * lista, que fica só com os que faltam se algum falhar.
+     */
+    private void gravar(List<EventoLancamento> eventos) {
+        Map<Integer, List<EventoLancamento>> porShard = new TreeMap<>();
+        for (EventoLancamento evento : eventos) {
+            porShard.computeIfAbsent(mapaShards.shardDoUsuario(evento.getIdUsuario()), shard -> new ArrayList<>())
+                    .add(evento);
+        }
+        eventos.clear();
+        try {
+            Iterator<Map.Entry<Integer, List<EventoLancamento>>> shards = porShard.entrySet().iterator();
+            while (shards.hasNext()) {
+                Map.Entry<Integer, List<EventoLancamento>> shard = shards.next();
+                try (ShardContexto.Escopo escopo = ShardContexto.doShard(shard.getKey())) {
+                    transacaoDeGravacao.executeWithoutResult(status -> repository.saveAll(shard.getValue()));
+                }
+                shards.remove();
+            }
+        } finally {
+            porShard.values().forEach(restantes -> restantes.forEach(evento -> {
+                // o id da tentativa que falhou não foi gravado
+                evento.setId(null);
+                eventos.add(evento);
+            }));
+        }
+    }
+
+    private void enfileirar(EventoLancamento evento) {
+        if (anel.oferecer(evento)) {
+            return;
+        }
+
+        long limite = System.nanoTime() + esperaMaxima.toNanos();
+        do {
+            Thread thread = escritor;
+            if (thread == null) {
+                // fora do ciclo de vida (desligando): grava na própria thread,
+                // sem deixar a falha chegar a quem já fez o commit
+                try {
+                    descarregar();
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao gravar os eventos de auditoria pendentes.", e);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(intervaloMs));
+                }
+            } else {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            if (anel.oferecer(evento)) {
+                return;
+            }
+        } while (System.nanoTime() - limite < 0);
+
+        descartados.incrementAndGet();
+        log.error("Fila de auditoria cheia; evento do lançamento {} ({}) descartado.",
+                evento.getIdLancamento(), evento.isRemovido() ? "removido" : evento.getStatus());
+    }
+
+    private static EventoLancamento evento(LancamentoDTO lancamento, Long idUsuario, boolean removido,
+            long versao, Long autor, LocalDateTime registradoEm) {
+        return EventoLancamento.builder()
+                .idLancamento(lancamento.getId())
+                .idUsuario(idUsuario)
+                .idAutor(autor)
+                .removido(removido)
+                .descricao(lancamento.getDescricao())
+                .mes(lancamento.getMes())
+                .ano(lancamento.getAno())
+                .valor(lancamento.getValor())
+                .tipo(lancamento.getTipo() == null ? null : TipoLancamento.valueOf(lancamento.getTipo()))
+                .status(lancamento.getStatus() == null ? null : StatusLancamento.valueOf(lancamento.getStatus()))
+                .versao(versao)
+                .registradoEm(registradoEm)
+                .build();
+    }
+
+    private static HistoricoLancamentoDTO historico(EventoLancamento evento) {
+        return HistoricoLancamentoDTO.builder()
+                .lancamento(new LancamentoDTO(evento.getIdLancamento(), evento.getDescricao(), evento.getMes(),
+                        evento.getAno(), evento.getValor(), evento.getIdUsuario(), evento.getTipo(), evento.getStatus()))
+                .removido(evento.isRemovido())
+                .autor(evento.getIdAutor())
+                .registradoEm(evento.getRegistradoEm())
+                .build();
+    }
+
+    /** Mesma regra do saldo_usuario: só lançamentos efetivados contam. */
+    private static long efeitoNoSaldo(EventoLancamento evento) {
+        if (evento.isRemovido() || evento.getStatus() != StatusLancamento.EFETIVADO
+                || evento.getValor() == null || evento.getTipo() == null) {
+            return 0;
+        }
+        long centavos = evento.getValor().getCentavos();
+        return evento.getTipo() == TipoLancamento.RECEITA ? centavos : -centavos;
+    }
+
+    /** Nulo fora de uma requisição autenticada (tarefas, importações internas). */
+    private static Long autenticado() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao != null && autenticacao.getPrincipal() instanceof UsuarioAutenticado) {
+            return ((UsuarioAutenticado) autenticacao.getPrincipal()).getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,285 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.EventoLancamentoDTO;
+import com.zetta.minhasfinancas.config.EventosConfiguration;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.service.EventosUsuarioService;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Barramento em memória entre as escritas de lançamentos e os streams SSE.
+ * Inscrições paradas não ocupam thread (o SseEmitter usa o modo assíncrono do
+ * servlet); cada uma tem um buffer limitado que é esvaziado por um executor
+ * pequeno, então um cliente lento nunca segura o commit de quem escreveu.
+ *
+ * No buffer, um evento novo do mesmo lançamento substitui o anterior (o
+ * saldo mais recente vale). Se o buffer encher, os eventos mais antigos são
+ * descartados e o cliente recebe "resincronizar" para consultar de novo.
+ */
+@Slf4j
+@Service
+public class EventosUsuarioServiceImpl implements EventosUsuarioService {
+
+    static final String EVENTO_LANCAMENTO = "lancamento";
+    static final String EVENTO_RESINCRONIZAR = "resincronizar";
+    private static final String CHAVE_HEARTBEAT = "heartbeat";
+
+    private final Map<Long, Set<Inscricao>> inscricoes = new ConcurrentHashMap<>();
+
+    private SaldoUsuarioService saldoUsuarioService;
+    private Executor executor;
+
+    @Value("${eventos.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${eventos.buffer:64}")
+    private int capacidadeBuffer;
+
+    public EventosUsuarioServiceImpl(
+            SaldoUsuarioService saldoUsuarioService,
+            @Qualifier(EventosConfiguration.EXECUTOR_EVENTOS) Executor executor) {
+        this.saldoUsuarioService = saldoUsuarioService;
+        this.executor = executor;
+    }
+
+    @Override
+    public SseEmitter inscrever(Long idUsuario) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Inscricao inscricao = new Inscricao(idUsuario, emitter, capacidadeBuffer);
+        inscricoes.computeIfAbsent(idUsuario, id -> ConcurrentHashMap.newKeySet()).add(inscricao);
+
+        emitter.onCompletion(() -> remover(inscricao));
+        emitter.onTimeout(() -> remover(inscricao));
+        emitter.onError(erro -> remover(inscricao));
+        return emitter;
+    }
+
+    /**
+     * Roda na transação de quem escreveu, a cada evento publicado: só junta os
+     * eventos da transação. Depois do commit, ainda na thread de quem
+     * escreveu, publica o lote (ver publicar) sem escrever em nenhum socket.
+     * Fora de transação o evento é ignorado, como num ouvinte AFTER_COMMIT.
+     */
+    @EventListener
+    public void aoAlterarLancamento(LancamentoAlteradoEvent evento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<LancamentoAlteradoEvent> daTransacao =
+                (List<LancamentoAlteradoEvent>) TransactionSynchronizationManager.getResource(this);
+        if (daTransacao == null) {
+            daTransacao = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, daTransacao);
+            TransactionSynchronizationManager.registerSynchronization(new LoteDaTransacao(daTransacao));
+        }
+        daTransacao.add(evento);
+    }
+
+    /**
+     * Lê o saldo uma vez por usuário com inscritos, e não uma por evento: um
+     * UPDATE em lote de status gera um evento por lançamento na mesma
+     * transação.
+     */
+    private void publicar(List<LancamentoAlteradoEvent> eventos) {
+        Map<Long, List<LancamentoAlteradoEvent>> porUsuario = new LinkedHashMap<>();
+        eventos.forEach(evento ->
+                porUsuario.computeIfAbsent(evento.getIdUsuario(), id -> new ArrayList<>()).add(evento));
+
+        porUsuario.forEach((idUsuario, doLote) -> {
+            Set<Inscricao> doUsuario = inscricoes.get(idUsuario);
+            if (doUsuario == null || doUsuario.isEmpty()) {
+                return;
+            }
+
+            Dinheiro saldo = saldoUsuarioService.obterSaldo(idUsuario);
+            for (LancamentoAlteradoEvent evento : doLote) {
+                EventoLancamentoDTO dto = EventoLancamentoDTO.builder()
+                        .lancamento(evento.getLancamento())
+                        .removido(evento.isRemovido())
+                        .saldo(saldo)
+                        .build();
+                Evento sse = new Evento(EVENTO_LANCAMENTO, dto);
+                String chave = EVENTO_LANCAMENTO + ":" + evento.getLancamento().getId();
+                doUsuario.forEach(inscricao -> inscricao.oferecer(chave, sse));
+            }
+            doUsuario.forEach(this::agendar);
+        });
+    }
+
+    /**
+     * Comentário SSE periódico: mantém a conexão viva em proxies e revela
+     * clientes que já foram embora (o envio falha e a inscrição sai).
+     */
+    @Scheduled(fixedDelayString = "${eventos.heartbeat-ms:30000}")
+    public void enviarHeartbeat() {
+        Evento comentario = new Evento(null, null);
+        inscricoes.values().forEach(doUsuario -> doUsuario.forEach(inscricao -> {
+            inscricao.oferecer(CHAVE_HEARTBEAT, comentario);
+            agendar(inscricao);
+        }));
+    }
+
+    int contarInscricoes() {
+        return inscricoes.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void agendar(Inscricao inscricao) {
+        if (inscricao.agendada.compareAndSet(false, true)) {
+            executor.execute(() -> entregar(inscricao));
+        }
+    }
+
+    private void entregar(Inscricao inscricao) {
+        try {
+            for (Evento evento : inscricao.drenar()) {
+                inscricao.emitter.send(evento.paraSse());
+            }
+        } catch (IOException | IllegalStateException e) {
+            // o próprio SseEmitter encerra a conexão quando o envio falha
+            log.debug("Inscrição de eventos do usuário {} encerrada: {}", inscricao.idUsuario, e.getMessage());
+            remover(inscricao);
+            return;
+        } finally {
+            inscricao.agendada.set(false);
+        }
+        if (inscricao.temPendentes()) {
+            agendar(inscricao);
+        }
+    }
+
+    private void remover(Inscricao inscricao) {
+        inscricoes.computeIfPresent(inscricao.idUsuario, (id, doUsuario) -> {
+            doUsuario.remove(inscricao);
+            return doUsuario.isEmpty() ? null : doUsuario;
+        });
+    }
+
+    /**
+     * Eventos acumulados de uma transação, guardados como recurso do
+     * TransactionSynchronizationManager; sai de cena enquanto uma transação
+     * interna (REQUIRES_NEW) roda, para que ela junte os seus próprios.
+     */
+    private class LoteDaTransacao implements TransactionSynchronization {
+
+        private final List<LancamentoAlteradoEvent> eventos;
+
+        LoteDaTransacao(List<LancamentoAlteradoEvent> eventos) {
+            this.eventos = eventos;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(EventosUsuarioServiceImpl.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(EventosUsuarioServiceImpl.this, eventos);
+        }
+
+        @Override
+        public void afterCommit() {
+            publicar(eventos);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EventosUsuarioServiceImpl.this);
+        }
+    }
+
+    /**
+     * O SseEventBuilder muda a cada build(), então cada envio monta o seu.
+     * Sem nome é o comentário de heartbeat.
+     */
+    static class Evento {
+
+        private final String nome;
+        private final Object dados;
+
+        Evento(String nome, Object dados) {
+            this.nome = nome;
+            this.dados = dados;
+        }
+
+        SseEmitter.SseEventBuilder paraSse() {
+            if (nome == null) {
+                return SseEmitter.event().comment(CHAVE_HEARTBEAT);
+            }
+            return SseEmitter.event().name(nome).data(dados);
+        }
+    }
+
+    static class Inscricao {
+
+        private final Long idUsuario;
+        private final SseEmitter emitter;
+        private final int capacidade;
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        private final LinkedHashMap<String, Evento> pendentes = new LinkedHashMap<>();
+        private boolean descartouEventos;
+
+        Inscricao(Long idUsuario, SseEmitter emitter, int capacidade) {
+            this.idUsuario = idUsuario;
+            this.emitter = emitter;
+            this.capacidade = capacidade;
+        }
+
+        /**
+         * Substitui o evento pendente de mesma chave (indo para o fim da fila)
+         * e descarta o mais antigo quando passa da capacidade.
+         */
+        synchronized void oferecer(String chave, Evento evento) {
+            pendentes.remove(chave);
+            pendentes.put(chave, evento);
+            if (pendentes.size() > capacidade) {
+                Iterator<String> maisAntigo = pendentes.keySet().iterator();
+                maisAntigo.next();
+                maisAntigo.remove();
+                descartouEventos = true;
+            }
+        }
+
+        synchronized List<Evento> drenar() {
+            if (pendentes.isEmpty() && !descartouEventos) {
+                return Collections.emptyList();
+            }
+            List<Evento> eventos = new ArrayList<>(pendentes.size() + 1);
+            if (descartouEventos) {
+                eventos.add(new Evento(EVENTO_RESINCRONIZAR, ""));
+                descartouEventos = false;
+            }
+            eventos.addAll(pendentes.values());
+            pendentes.clear();
+            return eventos;
+        }
+
+        synchronized boolean temPendentes() {
+            return !pendentes.isEmpty() || descartouEventos;
+        }
+    }
+}
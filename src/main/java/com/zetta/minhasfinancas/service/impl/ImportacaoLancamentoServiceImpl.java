@@ -0,0 +1,148 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.ErroImportacaoDTO;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.service.ImportacaoLancamentoService;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.LancamentosImportadosEvent;
+import com.zetta.minhasfinancas.service.ResumoMensalService;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import com.zetta.minhasfinancas.service.UsuarioService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ImportacaoLancamentoServiceImpl implements ImportacaoLancamentoService {
+
+    private LancamentoRepository repository;
+    private LancamentoService lancamentoService;
+    private UsuarioService usuarioService;
+    private ResumoMensalService resumoMensalService;
+    private SaldoUsuarioService saldoUsuarioService;
+    private ApplicationEventPublisher eventos;
+    private TransactionTemplate transacao;
+
+    public ImportacaoLancamentoServiceImpl(
+            LancamentoRepository repository,
+            LancamentoService lancamentoService,
+            UsuarioService usuarioService,
+            ResumoMensalService resumoMensalService,
+            SaldoUsuarioService saldoUsuarioService,
+            ApplicationEventPublisher eventos,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.lancamentoService = lancamentoService;
+        this.usuarioService = usuarioService;
+        this.resumoMensalService = resumoMensalService;
+        this.saldoUsuarioService = saldoUsuarioService;
+        this.eventos = eventos;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Busca o usuário uma única vez, valida o lote inteiro e grava apenas os
+     * lançamentos válidos, em lotes JDBC. Como no salvar, todos entram
+     * PENDENTE, então o saldo do usuário não muda. Os inválidos voltam com
+     * a posição no lote e o motivo.
+     *
+     * O usuário é lido antes e fora da transação da gravação: a tabela
+     * usuario fica no shard 0 e os lançamentos, no shard do usuário.
+     */
+    @Override
+    public ResultadoImportacaoDTO importar(Long idUsuario, List<LancamentoDTO> lancamentos) {
+        Usuario usuario = usuarioService
+                .obterPorId(idUsuario)
+                .orElseThrow( () -> new RegraNegocioException("Usuário não encontrado para o Id informado.") );
+
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            return transacao.execute(status -> gravar(usuario, lancamentos));
+        }
+    }
+
+    private ResultadoImportacaoDTO gravar(Usuario usuario, List<LancamentoDTO> lancamentos) {
+        Long idUsuario = usuario.getId();
+        List<Lancamento> validos = new ArrayList<>(lancamentos.size());
+        List<ErroImportacaoDTO> erros = new ArrayList<>();
+        for (int i = 0; i < lancamentos.size(); i++) {
+            try {
+                Lancamento lancamento = converter(lancamentos.get(i), usuario);
+                lancamentoService.validar(lancamento);
+                lancamento.setStatus(StatusLancamento.PENDENTE);
+                validos.add(lancamento);
+            } catch (RegraNegocioException e) {
+                erros.add(new ErroImportacaoDTO(i + 1, e.getMessage()));
+            }
+        }
+
+        repository.inserirEmLote(validos);
+        if (!validos.isEmpty()) {
+            // o saldo não muda, mas a listagem sim: avança a versão do usuário.
+            // Antes do resumo, como nas demais escritas (ver ResumoMensalServiceImpl).
+            saldoUsuarioService.aplicarDiferenca(idUsuario, Dinheiro.ZERO);
+            atualizarResumo(validos);
+            eventos.publishEvent(new LancamentosImportadosEvent(idUsuario, paraDTO(validos)));
+        }
+        return new ResultadoImportacaoDTO(validos.size(), erros);
+    }
+
+    /**
+     * Agrupa o lote por mês/tipo antes de atualizar o resumo mensal, para
+     * fazer uma atualização por linha do resumo e não uma por lançamento.
+     */
+    private void atualizarResumo(List<Lancamento> lancamentos) {
+        Map<ResumoMensalId, long[]> resumo = new HashMap<>();
+        for (Lancamento lancamento : lancamentos) {
+            ResumoMensalId chave = LancamentoServiceImpl.chaveResumo(
+                    lancamento.getUsuario().getId(), lancamento.getAno(), lancamento.getMes(),
+                    lancamento.getTipo(), lancamento.getStatus());
+            LancamentoServiceImpl.acumular(resumo, chave, 1, lancamento.getValor().getCentavos());
+        }
+        resumo.forEach((chave, diferenca) ->
+                resumoMensalService.aplicarDiferenca(chave, diferenca[0], Dinheiro.deCentavos(diferenca[1])));
+    }
+
+    private static List<LancamentoDTO> paraDTO(List<Lancamento> lancamentos) {
+        List<LancamentoDTO> dtos = new ArrayList<>(lancamentos.size());
+        for (Lancamento lancamento : lancamentos) {
+            dtos.add(new LancamentoDTO(lancamento.getId(), lancamento.getDescricao(), lancamento.getMes(),
+                    lancamento.getAno(), lancamento.getValor(), lancamento.getUsuario().getId(),
+                    lancamento.getTipo(), lancamento.getStatus()));
+        }
+        return dtos;
+    }
+
+    private Lancamento converter(LancamentoDTO dto, Usuario usuario) {
+        Lancamento lancamento = new Lancamento();
+        lancamento.setDescricao(dto.getDescricao());
+        lancamento.setAno(dto.getAno());
+        lancamento.setMes(dto.getMes());
+        lancamento.setValor(dto.getValor());
+        lancamento.setUsuario(usuario);
+
+        if (dto.getTipo() != null) {
+            try {
+                lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo().trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new RegraNegocioException("Tipo de lançamento inválido: " + dto.getTipo() + ".");
+            }
+        }
+        return lancamento;
+    }
+}
@@ -1,19 +1,27 @@
 package com.zetta.minhasfinancas.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.service.DadosToken;
 import com.zetta.minhasfinancas.service.JwtService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class JwtServiceImpl implements JwtService {
@@ -24,6 +32,12 @@ public class JwtServiceImpl implements JwtService {
     @Value("${jwt.key-signature}")
     private String signatureKey;
 
+    private Cache<String, DadosToken> cacheTokens;
+
+    public JwtServiceImpl(Cache<String, DadosToken> cacheTokens) {
+        this.cacheTokens = cacheTokens;
+    }
+
     @Override
     public String gerarToken(Usuario usuario) {
         long expLong = Long.valueOf(expiration);
@@ -52,6 +66,34 @@ public class JwtServiceImpl implements JwtService {
                 .getBody();
     }
 
+    /**
+     * Verifica a assinatura e a expiração com um único parse. Tokens válidos
+     * ficam no cache até expirarem, então a mesma requisição repetida custa
+     * apenas o digest do token e uma busca no cache.
+     */
+    @Override
+    public Optional<DadosToken> validarToken(String token) {
+        String digest = digest(token);
+        DadosToken dados = cacheTokens.getIfPresent(digest);
+        if (dados != null && !dados.isExpirado()) {
+            return Optional.of(dados);
+        }
+
+        try {
+            Claims claims = obterClaims(token);
+            dados = new DadosToken(claims.getSubject(), claims.getExpiration().toInstant());
+        }
+        catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (dados.isExpirado()) {
+            return Optional.empty();
+        }
+        cacheTokens.put(digest, dados);
+        return Optional.of(dados);
+    }
+
     @Override
     public boolean isTokenValido(String token) {
         try {
@@ -71,4 +113,14 @@ public class JwtServiceImpl implements JwtService {
         Claims claim = obterClaims(token);
         return claim.getSubject();
     }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -1,14 +1,33 @@
 package com.zetta.minhasfinancas.service.impl;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import com.zetta.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.PaginaLancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.config.MapaShards;
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
 import com.zetta.minhasfinancas.model.enums.TipoLancamento;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
-import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import com.zetta.minhasfinancas.model.projection.EstadoLancamento;
+import com.zetta.minhasfinancas.model.projection.EstadoLancamentoComId;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.LivroCaixaService;
+import com.zetta.minhasfinancas.service.ResumoMensalService;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,55 +35,269 @@ import com.zetta.minhasfinancas.exception.RegraNegocioException;
 import com.zetta.minhasfinancas.model.entity.Lancamento;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
 import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.service.LancamentoFiltro;
 import com.zetta.minhasfinancas.service.LancamentoService;
 
+/**
+ * Os métodos de um usuário abrem o escopo do shard dele (ShardContexto)
+ * antes do primeiro comando; saldo e resumo mensal do usuário ficam no
+ * mesmo shard e entram na mesma transação.
+ */
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
+
+	public static final int LIMITE_PADRAO = 50;
+	public static final int LIMITE_MAXIMO = 500;
+
+	private static final String LANCAMENTO_NAO_ENCONTRADO = "Lancamento não encontrado na base de Dados.";
 	
 	private LancamentoRepository repository;
+	private SaldoUsuarioService saldoUsuarioService;
+	private ResumoMensalService resumoMensalService;
+	private ApplicationEventPublisher eventos;
+	private LivroCaixaService livroCaixaService;
+	private MapaShards mapaShards;
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	public LancamentoServiceImpl(
+			LancamentoRepository repository,
+			SaldoUsuarioService saldoUsuarioService,
+			ResumoMensalService resumoMensalService,
+			ApplicationEventPublisher eventos,
+			LivroCaixaService livroCaixaService,
+			MapaShards mapaShards) {
 		this.repository = repository;
+		this.saldoUsuarioService = saldoUsuarioService;
+		this.resumoMensalService = resumoMensalService;
+		this.eventos = eventos;
+		this.livroCaixaService = livroCaixaService;
+		this.mapaShards = mapaShards;
 	}
 
 	@Override
 	@Transactional
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
-		lancamento.setStatus(StatusLancamento.PENDENTE);
-		return repository.save(lancamento);
+		try (ShardContexto.Escopo escopo = shardDo(lancamento)) {
+			lancamento.setStatus(StatusLancamento.PENDENTE);
+			Lancamento salvo = repository.save(lancamento);
+			registrarAlteracao(null, EstadoLancamento.de(salvo));
+			publicarAlteracao(salvo.getId(), salvo.getDescricao(), null, EstadoLancamento.de(salvo));
+			return salvo;
+		}
 	}
 
+	/**
+	 * Altera a entidade gerenciada no lugar: o estado anterior é copiado dela
+	 * antes da alteração (sem uma segunda consulta) e o UPDATE sai no flush do
+	 * commit, sem save/merge. A linha é lida travada, para que a versão
+	 * incrementada no flush seja a seguinte à copiada.
+	 */
 	@Override
 	@Transactional
-	public Lancamento atualizar(Lancamento lancamento) {
-		Objects.requireNonNull(lancamento.getId());
-		validar(lancamento);
-		return repository.save(lancamento);
+	public Lancamento atualizar(Long id, Long idUsuario, LancamentoDTO dados) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+			Lancamento lancamento = repository.travar(id, idUsuario)
+					.orElseThrow(() -> new RegraNegocioException(LANCAMENTO_NAO_ENCONTRADO));
+
+			if (dados.getUsuario() != null && !dados.getUsuario().equals(idUsuario)) {
+				throw new RegraNegocioException("Não é possível transferir o lançamento para outro usuário.");
+			}
+
+			EstadoLancamento anterior = EstadoLancamento.de(lancamento);
+			lancamento.setDescricao(dados.getDescricao());
+			lancamento.setAno(dados.getAno());
+			lancamento.setMes(dados.getMes());
+			lancamento.setValor(dados.getValor());
+			if (dados.getTipo() != null) {
+				lancamento.setTipo(TipoLancamento.valueOf(dados.getTipo()));
+			}
+			if (dados.getStatus() != null) {
+				lancamento.setStatus(StatusLancamento.valueOf(dados.getStatus()));
+			}
+
+			validar(lancamento);
+			registrarAlteracao(anterior, EstadoLancamento.de(lancamento));
+			publicarAlteracao(id, lancamento.getDescricao(), anterior, EstadoLancamento.de(lancamento));
+			return lancamento;
+		}
 	}
 
 	@Override
 	@Transactional
-	public void deletar(Lancamento lancamento) {
-		Objects.requireNonNull(lancamento.getId());
-		repository.delete(lancamento);
+	public void deletar(Long id, Long idUsuario) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+			EstadoLancamento anterior = repository.obterEstadoGravado(id, idUsuario)
+					.orElseThrow(() -> new RegraNegocioException(LANCAMENTO_NAO_ENCONTRADO));
+			repository.remover(id, idUsuario);
+			registrarAlteracao(anterior, null);
+			publicarAlteracao(id, null, anterior, null);
+		}
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		Example example = Example.of( lancamentoFiltro, 
-				ExampleMatcher.matching()
-					.withIgnoreCase()
-					.withStringMatcher(StringMatcher.CONTAINING) );
-		
-		return repository.findAll(example);
+	public List<LancamentoDTO> buscar(LancamentoFiltro filtro) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(filtro.getIdUsuario())) {
+			return repository.buscar(
+					filtro.getIdUsuario(),
+					filtro.getAno(),
+					filtro.getMes(),
+					filtro.getTipo(),
+					filtro.getStatus(),
+					filtro.getPadraoDescricao());
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public PaginaLancamentoDTO buscarPagina(LancamentoFiltro filtro, String cursor, int limite) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(filtro.getIdUsuario())) {
+			if (limite < 1 || limite > LIMITE_MAXIMO) {
+				throw new RegraNegocioException("Informe um limite entre 1 e " + LIMITE_MAXIMO + ".");
+			}
+
+			int anoCursor = 0;
+			int mesCursor = 0;
+			long idCursor = 0;
+			if (cursor != null) {
+				try {
+					String[] posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+					anoCursor = Integer.parseInt(posicao[0]);
+					mesCursor = Integer.parseInt(posicao[1]);
+					idCursor = Long.parseLong(posicao[2]);
+				} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+					throw new RegraNegocioException("Cursor de paginação inválido.");
+				}
+			}
+
+			// busca uma linha a mais só para saber se existe próxima página
+			List<LancamentoDTO> itens = repository.buscarPagina(
+					filtro.getIdUsuario(),
+					filtro.getAno(),
+					filtro.getMes(),
+					filtro.getTipo(),
+					filtro.getStatus(),
+					filtro.getPadraoDescricao(),
+					anoCursor, mesCursor, idCursor,
+					PageRequest.of(0, limite + 1));
+
+			String proximo = null;
+			if (itens.size() > limite) {
+				itens = itens.subList(0, limite);
+				LancamentoDTO ultimo = itens.get(limite - 1);
+				String posicao = ultimo.getAno() + ":" + ultimo.getMes() + ":" + ultimo.getId();
+				proximo = Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.US_ASCII));
+			}
+			return new PaginaLancamentoDTO(itens, proximo);
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void percorrer(LancamentoFiltro filtro, Consumer<LancamentoDTO> consumidor) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(filtro.getIdUsuario());
+				Stream<LancamentoDTO> lancamentos = repository.percorrer(
+						filtro.getIdUsuario(),
+						filtro.getAno(),
+						filtro.getMes(),
+						filtro.getTipo(),
+						filtro.getStatus(),
+						filtro.getPadraoDescricao())) {
+			lancamentos.forEach(consumidor);
+		}
+	}
+
+	@Override
+	@Transactional
+	public void atualizarStatus(Long id, Long idUsuario, StatusLancamento status) {
+		Objects.requireNonNull(status);
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+			EstadoLancamento anterior = repository.obterEstadoGravado(id, idUsuario)
+					.orElseThrow(() -> new RegraNegocioException(LANCAMENTO_NAO_ENCONTRADO));
+			if (anterior.getStatus() == status) {
+				return;
+			}
+			repository.atualizarStatus(id, idUsuario, status);
+			EstadoLancamento atual = EstadoLancamento.comStatus(anterior, status);
+			registrarAlteracao(anterior, atual);
+			publicarAlteracao(id, null, anterior, atual);
+		}
 	}
 
+	/**
+	 * Um select que trava as linhas que vão mudar, um UPDATE por id para
+	 * todas e as diferenças das projeções agregadas: uma atualização no saldo
+	 * e uma por linha do resumo mensal, em vez de uma de cada por lançamento.
+	 */
 	@Override
-	public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
-		lancamento.setStatus(status);
-		atualizar(lancamento);
+	@Transactional
+	public int atualizarStatus(Long idUsuario, AtualizaStatusLoteDTO dados) {
+		try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+			StatusLancamento status = converterEnum(StatusLancamento.class, dados.getStatus(), "status");
+			if (status == null) {
+				throw new RegraNegocioException("Informe um status válido.");
+			}
+			TipoLancamento tipo = converterEnum(TipoLancamento.class, dados.getTipo(), "tipo");
+
+			List<EstadoLancamentoComId> anteriores;
+			if (dados.getIds() != null && !dados.getIds().isEmpty()) {
+				anteriores = repository.travarParaStatus(idUsuario, dados.getIds(), status);
+			} else if (dados.getAno() != null || dados.getMes() != null || tipo != null) {
+				anteriores = repository.travarParaStatus(idUsuario, dados.getAno(), dados.getMes(), tipo, status);
+			} else {
+				throw new RegraNegocioException("Informe os ids ou o filtro (ano, mes, tipo) dos lançamentos.");
+			}
+			if (anteriores.isEmpty()) {
+				return 0;
+			}
+
+			List<Long> ids = new ArrayList<>(anteriores.size());
+			long diferencaSaldo = 0;
+			Map<ResumoMensalId, long[]> resumo = new HashMap<>();
+			for (EstadoLancamentoComId anterior : anteriores) {
+				ids.add(anterior.getId());
+				diferencaSaldo += efeitoNoSaldo(anterior.getTipo(), status, anterior.getValor())
+						- efeitoNoSaldo(anterior.getTipo(), anterior.getStatus(), anterior.getValor());
+
+				long valor = centavos(anterior.getValor());
+				acumular(resumo, chaveResumo(idUsuario, anterior.getAno(), anterior.getMes(),
+						anterior.getTipo(), anterior.getStatus()), -1, -valor);
+				acumular(resumo, chaveResumo(idUsuario, anterior.getAno(), anterior.getMes(),
+						anterior.getTipo(), status), 1, valor);
+			}
+
+			int atualizados = repository.atualizarStatus(ids, status);
+			saldoUsuarioService.aplicarDiferenca(idUsuario, Dinheiro.deCentavos(diferencaSaldo));
+			resumo.forEach((chave, diferenca) ->
+					resumoMensalService.aplicarDiferenca(chave, diferenca[0], Dinheiro.deCentavos(diferenca[1])));
+			anteriores.forEach(anterior ->
+					publicarAlteracao(anterior.getId(), null, anterior, EstadoLancamento.comStatus(anterior, status)));
+			return atualizados;
+		}
+	}
+
+	/**
+	 * Soma quantidade e centavos na diferença da linha do resumo, guardada
+	 * como {quantidade, centavos}.
+	 */
+	static void acumular(Map<ResumoMensalId, long[]> resumo, ResumoMensalId chave, long quantidade, long centavos) {
+		if (chave == null) {
+			return;
+		}
+		long[] diferenca = resumo.computeIfAbsent(chave, id -> new long[2]);
+		diferenca[0] += quantidade;
+		diferenca[1] += centavos;
+	}
+
+	private static <E extends Enum<E>> E converterEnum(Class<E> tipo, String valor, String campo) {
+		if (valor == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(tipo, valor);
+		} catch (IllegalArgumentException e) {
+			throw new RegraNegocioException("Valor inválido para " + campo + ": " + valor);
+		}
 	}
 
 	@Override
@@ -86,7 +319,7 @@ public class LancamentoServiceImpl implements LancamentoService {
 			throw new RegraNegocioException("Informe um Usuário.");
 		}
 		
-		if(lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1 ) {
+		if(lancamento.getValor() == null || lancamento.getValor().signum() < 1 ) {
 			throw new RegraNegocioException("Informe um Valor válido.");
 		}
 		
@@ -95,25 +328,146 @@ public class LancamentoServiceImpl implements LancamentoService {
 		}
 	}
 
+	/**
+	 * Sem o usuário não se sabe o shard, então procura em um de cada vez
+	 * (cada findById na sua própria transação).
+	 */
 	@Override
 	public Optional<Lancamento> obterPorId(Long id) {
-		return repository.findById(id);
+		for (int shard = 0; shard < mapaShards.getQuantidade(); shard++) {
+			try (ShardContexto.Escopo escopo = ShardContexto.doShard(shard)) {
+				Optional<Lancamento> lancamento = repository.findById(id);
+				if (lancamento.isPresent()) {
+					return lancamento;
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Com o livro-caixa habilitado a consulta é respondida da memória, sem
+	 * abrir transação; senão vem da projeção saldo_usuario.
+	 */
+	@Override
+	public Dinheiro obterSaldoPorUsuario(Long id) {
+		if (livroCaixaService.isHabilitado()) {
+			return livroCaixaService.obterSaldo(id);
+		}
+		return saldoUsuarioService.obterSaldo(id);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public BigDecimal obterSaldoPorUsuario(Long id) {
-		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
-		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+	public long obterVersaoPorUsuario(Long id) {
+		return saldoUsuarioService.obterVersao(id);
+	}
+
+	@Override
+	public List<ResumoMensalDTO> obterResumoMensal(Long idUsuario, Integer deAno, Integer ateAno) {
+		if (livroCaixaService.isHabilitado()) {
+			return livroCaixaService.obterResumo(idUsuario, deAno, ateAno);
+		}
+		return resumoMensalService.obterResumo(idUsuario, deAno, ateAno);
+	}
+
+	/**
+	 * Mantém as projeções (saldo_usuario e resumo_mensal) a partir da diferença
+	 * entre o estado gravado antes da escrita e o estado atual; um dos dois é
+	 * nulo na inclusão e na exclusão. Só lançamentos efetivados contam no saldo,
+	 * então ele só muda quando o status entra ou sai de EFETIVADO (ou quando um
+	 * lançamento efetivado muda de valor, tipo ou usuário).
+	 */
+	private void registrarAlteracao(EstadoLancamento anterior, EstadoLancamento atual) {
+		Long idUsuarioAnterior = anterior == null ? null : anterior.getIdUsuario();
+		Long idUsuarioAtual = atual == null ? null : atual.getIdUsuario();
+
+		long efeitoAnterior = anterior == null ? 0
+				: efeitoNoSaldo(anterior.getTipo(), anterior.getStatus(), anterior.getValor());
+		long efeitoAtual = atual == null ? 0
+				: efeitoNoSaldo(atual.getTipo(), atual.getStatus(), atual.getValor());
 
-		if (receitas == null) {
-			receitas = BigDecimal.ZERO;
+		if (Objects.equals(idUsuarioAnterior, idUsuarioAtual)) {
+			saldoUsuarioService.aplicarDiferenca(idUsuarioAtual, Dinheiro.deCentavos(efeitoAtual - efeitoAnterior));
+		} else {
+			saldoUsuarioService.aplicarDiferenca(idUsuarioAnterior, Dinheiro.deCentavos(-efeitoAnterior));
+			saldoUsuarioService.aplicarDiferenca(idUsuarioAtual, Dinheiro.deCentavos(efeitoAtual));
 		}
 
-		if (despesas == null) {
-			despesas = BigDecimal.ZERO;
+		ResumoMensalId chaveAnterior = anterior == null ? null : chaveResumo(
+				idUsuarioAnterior, anterior.getAno(), anterior.getMes(), anterior.getTipo(), anterior.getStatus());
+		ResumoMensalId chaveAtual = atual == null ? null : chaveResumo(
+				idUsuarioAtual, atual.getAno(), atual.getMes(), atual.getTipo(), atual.getStatus());
+		long valorAnterior = anterior == null ? 0 : centavos(anterior.getValor());
+		long valorAtual = atual == null ? 0 : centavos(atual.getValor());
+
+		if (chaveAnterior != null && chaveAnterior.equals(chaveAtual)) {
+			resumoMensalService.aplicarDiferenca(chaveAtual, 0, Dinheiro.deCentavos(valorAtual - valorAnterior));
+			return;
+		}
+		if (chaveAnterior != null) {
+			resumoMensalService.aplicarDiferenca(chaveAnterior, -1, Dinheiro.deCentavos(-valorAnterior));
+		}
+		if (chaveAtual != null) {
+			resumoMensalService.aplicarDiferenca(chaveAtual, 1, Dinheiro.deCentavos(valorAtual));
+		}
+	}
+
+	/**
+	 * Escopo do shard do dono do lançamento.
+	 */
+	private static ShardContexto.Escopo shardDo(Lancamento lancamento) {
+		return ShardContexto.doUsuario(lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId());
+	}
+
+	/**
+	 * Publica LancamentoAlteradoEvent para o dono atual e, se o lançamento
+	 * saiu dele (exclusão), como removido para o anterior. A descrição é nula
+	 * nos caminhos que não carregam a entidade. A versão do evento é a
+	 * seguinte à do estado anterior, lido com a linha travada, ou 0 num
+	 * lançamento novo.
+	 */
+	private void publicarAlteracao(Long id, String descricao, EstadoLancamento anterior, EstadoLancamento atual) {
+		long versao = anterior == null || anterior.getVersao() == null ? 0 : anterior.getVersao() + 1;
+		if (atual != null && atual.getIdUsuario() != null) {
+			eventos.publishEvent(new LancamentoAlteradoEvent(
+					atual.getIdUsuario(), dto(id, descricao, atual), false, versao));
+		}
+		if (anterior != null && anterior.getIdUsuario() != null
+				&& (atual == null || !anterior.getIdUsuario().equals(atual.getIdUsuario()))) {
+			eventos.publishEvent(new LancamentoAlteradoEvent(
+					anterior.getIdUsuario(), dto(id, descricao, anterior), true, versao));
 		}
+	}
+
+	private LancamentoDTO dto(Long id, String descricao, EstadoLancamento estado) {
+		return new LancamentoDTO(id, descricao, estado.getMes(), estado.getAno(), estado.getValor(),
+				estado.getIdUsuario(), estado.getTipo(), estado.getStatus());
+	}
+
+	/**
+	 * Chave da linha do resumo mensal, ou nulo se o lançamento não tem todos os
+	 * campos que a compõem (e por isso não entra no resumo).
+	 */
+	public static ResumoMensalId chaveResumo(Long idUsuario, Integer ano, Integer mes,
+			TipoLancamento tipo, StatusLancamento status) {
+		if (idUsuario == null || ano == null || mes == null || tipo == null || status == null) {
+			return null;
+		}
+		return new ResumoMensalId(idUsuario, ano, mes, tipo, status);
+	}
+
+	/**
+	 * Em centavos, para que as diferenças sejam somadas como long.
+	 */
+	private long efeitoNoSaldo(TipoLancamento tipo, StatusLancamento status, Dinheiro valor) {
+		if (status != StatusLancamento.EFETIVADO || valor == null) {
+			return 0;
+		}
+		return tipo == TipoLancamento.DESPESA ? -valor.getCentavos() : valor.getCentavos();
+	}
 
-		return receitas.subtract(despesas);
+	private static long centavos(Dinheiro valor) {
+		return valor == null ? 0 : valor.getCentavos();
 	}
 }
@@ -0,0 +1,208 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+
+import java.util.Arrays;
+
+/**
+ * Lançamentos de um usuário em colunas de tipos primitivos: o valor em
+ * centavos, ano e mês num único int (ano * 12 + mes - 1) e tipo e status
+ * pelo ordinal. Saldo e resumo são laços sobre os arrays, sem alocação e
+ * sem boxing. Campos nulos viram SEM_VALOR e, como no resumo_mensal, o
+ * lançamento deixa de entrar no resumo.
+ *
+ * Cada posição guarda também a versão do lançamento, para que um evento
+ * atrasado não desfaça um mais novo: os eventos de transações diferentes
+ * chegam em qualquer ordem. Um lançamento removido continua na sua posição,
+ * sem valor, com a versão da remoção.
+ *
+ * Não é thread-safe: o LivroCaixaServiceImpl acessa cada instância
+ * sincronizado nela.
+ */
+final class LivroCaixa {
+
+    static final int TIPOS = TipoLancamento.values().length;
+    static final int STATUS = StatusLancamento.values().length;
+    static final byte SEM_VALOR = -1;
+    static final int SEM_ANO_MES = Integer.MIN_VALUE;
+
+    /** id, versão, centavos, ano/mês, tipo e status. */
+    static final int BYTES_POR_LANCAMENTO = 8 + 8 + 8 + 4 + 1 + 1;
+    /** A própria instância e os cabeçalhos dos seis arrays, aproximadamente. */
+    static final int BYTES_FIXOS = 32 + 6 * 16;
+
+    private static final int CAPACIDADE_INICIAL = 16;
+    private static final byte DESPESA = (byte) TipoLancamento.DESPESA.ordinal();
+    private static final byte EFETIVADO = (byte) StatusLancamento.EFETIVADO.ordinal();
+
+    private long[] ids = new long[CAPACIDADE_INICIAL];
+    private long[] versoes = new long[CAPACIDADE_INICIAL];
+    private long[] centavos = new long[CAPACIDADE_INICIAL];
+    private int[] anosMeses = new int[CAPACIDADE_INICIAL];
+    private byte[] tipos = new byte[CAPACIDADE_INICIAL];
+    private byte[] status = new byte[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    private int menorAno = Integer.MAX_VALUE;
+    private int maiorAno = Integer.MIN_VALUE;
+
+    /** Lido sem trava no cálculo do uso de memória de todos os livros. */
+    private volatile long bytes = BYTES_FIXOS + (long) CAPACIDADE_INICIAL * BYTES_POR_LANCAMENTO;
+    private boolean carregado;
+
+    /**
+     * Inclui ou substitui o lançamento pelo id, a não ser que o livro já
+     * tenha uma versão igual ou mais nova dele. Retorna true se os arrays
+     * precisaram crescer.
+     */
+    boolean gravar(long id, long versao, long centavos, int anoMes, byte tipo, byte status) {
+        int posicao = posicao(id);
+        boolean cresceu = false;
+        if (posicao < 0) {
+            cresceu = garantirCapacidade(tamanho + 1);
+            posicao = tamanho++;
+            ids[posicao] = id;
+        } else if (versoes[posicao] >= versao) {
+            return false;
+        }
+        versoes[posicao] = versao;
+        preencher(posicao, centavos, anoMes, tipo, status);
+        return cresceu;
+    }
+
+    /**
+     * Como gravar, para a carga: os ids vindos do banco são únicos, então
+     * não procura o id antes de acrescentar.
+     */
+    void acrescentar(long id, long versao, long centavos, int anoMes, byte tipo, byte status) {
+        garantirCapacidade(tamanho + 1);
+        int posicao = tamanho++;
+        ids[posicao] = id;
+        versoes[posicao] = versao;
+        preencher(posicao, centavos, anoMes, tipo, status);
+    }
+
+    /**
+     * Tira o valor do lançamento do saldo e do resumo, mas mantém a posição
+     * com a versão da remoção, para ignorar as escritas anteriores que ainda
+     * cheguem. Retorna true se os arrays precisaram crescer.
+     */
+    boolean remover(long id, long versao) {
+        return gravar(id, versao, 0, SEM_ANO_MES, SEM_VALOR, SEM_VALOR);
+    }
+
+    /**
+     * Mesma regra do saldo_usuario: só lançamentos efetivados contam, e
+     * despesas subtraem.
+     */
+    long saldoEmCentavos() {
+        long saldo = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (status[i] == EFETIVADO) {
+                saldo += tipos[i] == DESPESA ? -centavos[i] : centavos[i];
+            }
+        }
+        return saldo;
+    }
+
+    /**
+     * Soma quantidade e total em centavos por mês/tipo/status entre deAno e
+     * ateAno, nas posições dadas por indice(). Os arrays são do chamador e
+     * precisam ter ao menos (ateAno - deAno + 1) * 12 * TIPOS * STATUS
+     * posições.
+     */
+    void resumir(int deAno, int ateAno, long[] quantidades, long[] totais) {
+        int inicio = deAno * 12;
+        int fim = (ateAno + 1) * 12;
+        for (int i = 0; i < tamanho; i++) {
+            int anoMes = anosMeses[i];
+            if (anoMes < inicio || anoMes >= fim || tipos[i] == SEM_VALOR || status[i] == SEM_VALOR) {
+                continue;
+            }
+            int indice = indice(anoMes - inicio, tipos[i], status[i]);
+            quantidades[indice]++;
+            totais[indice] += centavos[i];
+        }
+    }
+
+    static int indice(int mesesDesdeOInicio, int tipo, int status) {
+        return (mesesDesdeOInicio * TIPOS + tipo) * STATUS + status;
+    }
+
+    static int anoMes(Integer ano, Integer mes) {
+        return ano == null || mes == null ? SEM_ANO_MES : ano * 12 + mes - 1;
+    }
+
+    static byte ordinal(Enum<?> valor) {
+        return valor == null ? SEM_VALOR : (byte) valor.ordinal();
+    }
+
+    static long centavos(Dinheiro valor) {
+        return valor == null ? 0 : valor.getCentavos();
+    }
+
+    int getTamanho() {
+        return tamanho;
+    }
+
+    int getMenorAno() {
+        return menorAno;
+    }
+
+    int getMaiorAno() {
+        return maiorAno;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    boolean isCarregado() {
+        return carregado;
+    }
+
+    void marcarCarregado() {
+        carregado = true;
+    }
+
+    private void preencher(int posicao, long centavos, int anoMes, byte tipo, byte status) {
+        this.centavos[posicao] = centavos;
+        this.anosMeses[posicao] = anoMes;
+        this.tipos[posicao] = tipo;
+        this.status[posicao] = status;
+        if (anoMes != SEM_ANO_MES) {
+            menorAno = Math.min(menorAno, anoMes / 12);
+            maiorAno = Math.max(maiorAno, anoMes / 12);
+        }
+    }
+
+    /**
+     * Busca linear: só as escritas procuram pelo id, e um usuário tem no
+     * máximo alguns milhares de lançamentos.
+     */
+    private int posicao(long id) {
+        for (int i = 0; i < tamanho; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean garantirCapacidade(int minima) {
+        if (minima <= ids.length) {
+            return false;
+        }
+        int capacidade = Math.max(minima, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacidade);
+        versoes = Arrays.copyOf(versoes, capacidade);
+        centavos = Arrays.copyOf(centavos, capacidade);
+        anosMeses = Arrays.copyOf(anosMeses, capacidade);
+        tipos = Arrays.copyOf(tipos, capacidade);
+        status = Arrays.copyOf(status, capacidade);
+        bytes = BYTES_FIXOS + (long) capacidade * BYTES_POR_LANCAMENTO;
+        return true;
+    }
+}
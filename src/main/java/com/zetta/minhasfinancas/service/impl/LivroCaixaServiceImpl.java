@@ -0,0 +1,281 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.LancamentosImportadosEvent;
+import com.zetta.minhasfinancas.service.LivroCaixaService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Mantém em memória, por usuário, um LivroCaixa com os lançamentos em
+ * colunas primitivas. O livro é carregado do banco na primeira consulta do
+ * usuário e depois acompanha as escritas pelos LancamentoAlteradoEvent, já
+ * confirmados (AFTER_COMMIT). Quando a soma dos livros passa de
+ * livro-caixa.memoria-maxima, os usados há mais tempo saem (LRU) e voltam a
+ * ser carregados se forem consultados de novo.
+ *
+ * A carga trava o livro antes de publicá-lo no mapa, então um evento que
+ * chegue durante a carga espera por ela e é aplicado em seguida. Como o
+ * evento traz o estado completo do lançamento, reaplicar uma escrita que a
+ * carga já viu não muda nada.
+ */
+@Slf4j
+@Service
+public class LivroCaixaServiceImpl implements LivroCaixaService, MeterBinder {
+
+    private static final TipoLancamento[] TIPOS = TipoLancamento.values();
+    private static final StatusLancamento[] STATUS = StatusLancamento.values();
+    private static final int[] TIPOS_POR_NOME = ordinaisPorNome(TIPOS);
+    private static final int[] STATUS_POR_NOME = ordinaisPorNome(STATUS);
+
+    /** Em ordem de acesso: o primeiro é o usado há mais tempo. */
+    private final LinkedHashMap<Long, LivroCaixa> livros = new LinkedHashMap<>(16, 0.75f, true);
+
+    private LancamentoRepository repository;
+    private TransactionTemplate transacaoDeCarga;
+
+    @Value("${livro-caixa.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${livro-caixa.memoria-maxima:64MB}")
+    private DataSize memoriaMaxima;
+
+    public LivroCaixaServiceImpl(
+            LancamentoRepository repository,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        // transação própria: a carga não pode enxergar escritas ainda não
+        // confirmadas da transação de quem consulta. Não é readOnly para ler
+        // do primário quando há réplicas (RoteamentoDataSource): uma réplica
+        // atrasada deixaria de fora escritas cujos eventos já passaram.
+        this.transacaoDeCarga = new TransactionTemplate(transactionManager);
+        this.transacaoDeCarga.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @Override
+    public Dinheiro obterSaldo(Long idUsuario) {
+        return Dinheiro.deCentavos(consultar(idUsuario, LivroCaixa::saldoEmCentavos));
+    }
+
+    /**
+     * Mesmo formato e ordem (ano, mês, tipo e status pelo nome) da consulta
+     * ao resumo_mensal. O período é limitado aos anos que o usuário tem.
+     */
+    @Override
+    public List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer deAno, Integer ateAno) {
+        if (deAno > ateAno) {
+            throw new RegraNegocioException("O ano inicial deve ser menor ou igual ao ano final.");
+        }
+
+        return consultar(idUsuario, livro -> {
+            int de = Math.max(deAno, livro.getMenorAno());
+            int ate = Math.min(ateAno, livro.getMaiorAno());
+            if (de > ate) {
+                return new ArrayList<ResumoMensalDTO>();
+            }
+
+            int meses = (ate - de + 1) * 12;
+            long[] quantidades = new long[meses * LivroCaixa.TIPOS * LivroCaixa.STATUS];
+            long[] totais = new long[quantidades.length];
+            livro.resumir(de, ate, quantidades, totais);
+
+            List<ResumoMensalDTO> resumo = new ArrayList<>();
+            for (int mes = 0; mes < meses; mes++) {
+                for (int tipo : TIPOS_POR_NOME) {
+                    for (int status : STATUS_POR_NOME) {
+                        int indice = LivroCaixa.indice(mes, tipo, status);
+                        if (quantidades[indice] > 0) {
+                            resumo.add(ResumoMensalDTO.builder()
+                                    .ano(de + mes / 12)
+                                    .mes(mes % 12 + 1)
+                                    .tipo(TIPOS[tipo].name())
+                                    .status(STATUS[status].name())
+                                    .quantidade(quantidades[indice])
+                                    .total(Dinheiro.deCentavos(totais[indice]))
+                                    .build());
+                        }
+                    }
+                }
+            }
+            return resumo;
+        });
+    }
+
+    @Override
+    public void descartar(Long idUsuario) {
+        synchronized (livros) {
+            livros.remove(idUsuario);
+        }
+    }
+
+    /**
+     * Só atualiza usuários que já estão em memória; os demais serão lidos do
+     * banco, já com a escrita, quando forem consultados. Eventos com versão
+     * igual ou anterior à do livro (atrasados, ou já vistos na carga) são
+     * ignorados pelo LivroCaixa.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarLancamento(LancamentoAlteradoEvent evento) {
+        LivroCaixa livro;
+        synchronized (livros) {
+            livro = livros.get(evento.getIdUsuario());
+        }
+        if (livro == null) {
+            return;
+        }
+
+        LancamentoDTO lancamento = evento.getLancamento();
+        boolean cresceu = false;
+        synchronized (livro) {
+            if (evento.isRemovido()) {
+                cresceu = livro.remover(lancamento.getId(), evento.getVersao());
+            } else {
+                cresceu = livro.gravar(
+                        lancamento.getId(),
+                        evento.getVersao(),
+                        LivroCaixa.centavos(lancamento.getValor()),
+                        LivroCaixa.anoMes(lancamento.getAno(), lancamento.getMes()),
+                        LivroCaixa.ordinal(lancamento.getTipo() == null ? null : TipoLancamento.valueOf(lancamento.getTipo())),
+                        LivroCaixa.ordinal(lancamento.getStatus() == null ? null : StatusLancamento.valueOf(lancamento.getStatus())));
+            }
+        }
+        if (cresceu) {
+            despejarExcedente();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoImportarLancamentos(LancamentosImportadosEvent evento) {
+        descartar(evento.getIdUsuario());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("financas.livro-caixa.usuarios", this, servico -> servico.contarUsuarios())
+                .description("Usuários com o livro-caixa em memória")
+                .register(registry);
+        Gauge.builder("financas.livro-caixa.memoria", this, servico -> servico.somarBytes())
+                .description("Memória estimada dos livros-caixa carregados")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    int contarUsuarios() {
+        synchronized (livros) {
+            return livros.size();
+        }
+    }
+
+    long somarBytes() {
+        synchronized (livros) {
+            return livros.values().stream().mapToLong(LivroCaixa::getBytes).sum();
+        }
+    }
+
+    private <T> T consultar(Long idUsuario, Function<LivroCaixa, T> consulta) {
+        while (true) {
+            LivroCaixa livro;
+            synchronized (livros) {
+                livro = livros.get(idUsuario);
+            }
+            if (livro == null) {
+                livro = carregar(idUsuario);
+            }
+            synchronized (livro) {
+                if (livro.isCarregado()) {
+                    return consulta.apply(livro);
+                }
+            }
+            // a carga feita por outra thread falhou e o livro saiu do mapa
+        }
+    }
+
+    private LivroCaixa carregar(Long idUsuario) {
+        LivroCaixa livro = new LivroCaixa();
+        synchronized (livro) {
+            synchronized (livros) {
+                LivroCaixa existente = livros.putIfAbsent(idUsuario, livro);
+                if (existente != null) {
+                    return existente;
+                }
+            }
+            try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+                transacaoDeCarga.executeWithoutResult(status -> {
+                    try (Stream<Object[]> linhas = repository.percorrerParaLivroCaixa(idUsuario)) {
+                        linhas.forEach(linha -> livro.acrescentar(
+                                (Long) linha[0],
+                                (Long) linha[6],
+                                LivroCaixa.centavos((Dinheiro) linha[1]),
+                                LivroCaixa.anoMes((Integer) linha[2], (Integer) linha[3]),
+                                LivroCaixa.ordinal((TipoLancamento) linha[4]),
+                                LivroCaixa.ordinal((StatusLancamento) linha[5])));
+                    }
+                });
+                livro.marcarCarregado();
+            } catch (RuntimeException e) {
+                synchronized (livros) {
+                    livros.remove(idUsuario, livro);
+                }
+                throw e;
+            }
+        }
+        log.debug("Livro-caixa do usuário {} carregado com {} lançamento(s).", idUsuario, livro.getTamanho());
+        despejarExcedente();
+        return livro;
+    }
+
+    /**
+     * Tira os livros usados há mais tempo até caber no limite. Um livro que
+     * sai enquanto ainda é consultado continua válido para essa consulta.
+     */
+    private void despejarExcedente() {
+        long limite = memoriaMaxima.toBytes();
+        synchronized (livros) {
+            long total = livros.values().stream().mapToLong(LivroCaixa::getBytes).sum();
+            Iterator<LivroCaixa> maisAntigos = livros.values().iterator();
+            while (total > limite && maisAntigos.hasNext()) {
+                total -= maisAntigos.next().getBytes();
+                maisAntigos.remove();
+            }
+        }
+    }
+
+    private static int[] ordinaisPorNome(Enum<?>[] valores) {
+        return Arrays.stream(valores)
+                .sorted(Comparator.comparing(Enum::name))
+                .mapToInt(Enum::ordinal)
+                .toArray();
+    }
+}
@@ -0,0 +1,133 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.config.Shards;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.ResumoMensal;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.zetta.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.zetta.minhasfinancas.service.ResumoMensalService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ResumoMensalServiceImpl implements ResumoMensalService {
+
+    private ResumoMensalRepository repository;
+    private LancamentoRepository lancamentoRepository;
+    private SaldoUsuarioRepository saldoUsuarioRepository;
+    private Shards shards;
+
+    public ResumoMensalServiceImpl(
+            ResumoMensalRepository repository,
+            LancamentoRepository lancamentoRepository,
+            SaldoUsuarioRepository saldoUsuarioRepository,
+            Shards shards) {
+        this.repository = repository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.saldoUsuarioRepository = saldoUsuarioRepository;
+        this.shards = shards;
+    }
+
+    /**
+     * Chamado dentro da transação da escrita do lançamento. Quando a linha do
+     * mês/tipo/status ainda não existe ela é criada com a própria diferença,
+     * porque o resumo é reconstruído por completo no backfill.
+     */
+    @Override
+    @Transactional
+    public void aplicarDiferenca(ResumoMensalId id, long quantidade, Dinheiro valor) {
+        if (quantidade == 0 && valor.signum() == 0) {
+            return;
+        }
+
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(id.getIdUsuario())) {
+            int atualizados = repository.somar(id, quantidade, valor);
+            if (atualizados == 0) {
+                repository.save(new ResumoMensal(id, quantidade, valor));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumoMensalDTO> obterResumo(Long idUsuario, Integer deAno, Integer ateAno) {
+        if (deAno > ateAno) {
+            throw new RegraNegocioException("O ano inicial deve ser menor ou igual ao ano final.");
+        }
+
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            return repository.buscarPorPeriodo(idUsuario, deAno, ateAno).stream()
+                    .map(resumo -> ResumoMensalDTO.builder()
+                            .ano(resumo.getId().getAno())
+                            .mes(resumo.getId().getMes())
+                            .tipo(resumo.getId().getTipo().name())
+                            .status(resumo.getId().getStatus().name())
+                            .quantidade(resumo.getQuantidade())
+                            .total(resumo.getTotal())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reconstruir(Long idUsuario) {
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            saldoUsuarioRepository.travar(idUsuario);
+            repository.remover(idUsuario);
+            repository.inserirAPartirDosLancamentos(idUsuario);
+        }
+    }
+
+    /**
+     * Backfill: refaz a tabela resumo_mensal inteira a partir dos lançamentos,
+     * um shard por vez (ver reconstruirShardAtual).
+     */
+    @Override
+    @Scheduled(cron = "${resumo.reconstrucao.cron:0 30 3 * * *}")
+    public void reconstruirTodos() {
+        AtomicInteger linhas = new AtomicInteger();
+        shards.emCadaShard(shard -> linhas.addAndGet(reconstruirShardAtual()));
+        log.info("Resumo mensal reconstruído com {} linha(s).", linhas.get());
+    }
+
+    /**
+     * Na primeira subida com a tabela resumo_mensal vazia, preenche a partir
+     * dos lançamentos que já existiam (em cada shard, pelo mesmo critério).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preencherSeVazio() {
+        shards.emCadaShard(shard -> {
+            if (repository.count() == 0 && lancamentoRepository.count() > 0) {
+                log.info("Resumo mensal do shard {} preenchido com {} linha(s).", shard, reconstruirShardAtual());
+            }
+        });
+    }
+
+    /**
+     * Toda escrita nos lançamentos passa pelo saldo_usuario antes do
+     * resumo_mensal, então travar as linhas de saldo do shard (como a
+     * reconciliação de saldos) segura as escritas concorrentes: as já
+     * confirmadas entram no insert-select, e as demais esperam o commit da
+     * reconstrução para aplicar a diferença sobre as linhas novas.
+     */
+    private int reconstruirShardAtual() {
+        saldoUsuarioRepository.travarTodos();
+        repository.remover(null);
+        return repository.inserirTodosAPartirDosLancamentos();
+    }
+}
@@ -0,0 +1,170 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.config.ShardContexto;
+import com.zetta.minhasfinancas.config.Shards;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.SaldoUsuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class SaldoUsuarioServiceImpl implements SaldoUsuarioService {
+
+    private SaldoUsuarioRepository repository;
+    private LancamentoRepository lancamentoRepository;
+    private Shards shards;
+
+    public SaldoUsuarioServiceImpl(
+            SaldoUsuarioRepository repository,
+            LancamentoRepository lancamentoRepository,
+            Shards shards) {
+        this.repository = repository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.shards = shards;
+    }
+
+    /**
+     * Chamado dentro da transação da escrita do lançamento, depois que ela
+     * já foi enviada ao banco. Se o usuário ainda não tem linha de saldo,
+     * ela é criada a partir da soma dos lançamentos, que já inclui a escrita atual.
+     * Se outra escrita do mesmo usuário criou a linha nesse meio tempo, a soma
+     * dela não inclui esta escrita, então a diferença é aplicada sobre a linha dela.
+     * Com diferença zero o update ainda é feito, para incrementar a versão.
+     */
+    @Override
+    @Transactional
+    public void aplicarDiferenca(Long idUsuario, Dinheiro diferenca) {
+        if (idUsuario == null || diferenca == null) {
+            return;
+        }
+
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            int atualizados = repository.somarAoSaldo(idUsuario, diferenca);
+            if (atualizados == 0 && repository.inserirSeAusente(idUsuario, calcularSaldo(idUsuario)) == 0) {
+                repository.somarAoSaldo(idUsuario, diferenca);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Dinheiro obterSaldo(Long idUsuario) {
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            return repository.findById(idUsuario)
+                    .map(SaldoUsuario::getSaldo)
+                    .orElseGet(() -> calcularSaldo(idUsuario));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long obterVersao(Long idUsuario) {
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            return repository.obterVersao(idUsuario).orElse(0l);
+        }
+    }
+
+    @Override
+    @Transactional
+    public Dinheiro reconstruirSaldo(Long idUsuario) {
+        try (ShardContexto.Escopo escopo = ShardContexto.doUsuario(idUsuario)) {
+            // trava antes de somar (ver SaldoUsuarioRepository.travarTodos)
+            Optional<SaldoUsuario> gravado = repository.travar(idUsuario);
+            Dinheiro saldo = calcularSaldo(idUsuario);
+            if (gravado.isPresent()) {
+                corrigir(gravado.get(), saldo);
+            } else if (repository.inserirSeAusente(idUsuario, saldo) == 0) {
+                // criada por uma escrita concorrente: trava e soma de novo
+                SaldoUsuario criado = repository.travar(idUsuario).get();
+                saldo = calcularSaldo(idUsuario);
+                corrigir(criado, saldo);
+            }
+            return saldo;
+        }
+    }
+
+    /**
+     * Recalcula o saldo de todos os usuários a partir dos lançamentos e
+     * corrige as linhas que divergirem da projeção, um shard por vez.
+     */
+    @Override
+    @Scheduled(cron = "${saldo.reconciliacao.cron:0 0 3 * * *}")
+    public void reconciliar() {
+        AtomicInteger corrigidos = new AtomicInteger();
+        shards.emCadaShard(shard -> corrigidos.addAndGet(reconciliarShardAtual()));
+
+        if (corrigidos.get() > 0) {
+            log.warn("Reconciliação de saldos corrigiu {} usuário(s).", corrigidos.get());
+        }
+    }
+
+    /**
+     * As linhas de saldo do shard ficam travadas desde antes da soma dos
+     * lançamentos até o commit; sem isso, uma diferença confirmada entre a
+     * soma e a correção seria sobrescrita pelo valor absoluto.
+     */
+    private int reconciliarShardAtual() {
+        List<SaldoUsuario> gravados = repository.travarTodos();
+        Map<Long, Dinheiro> calculados = new HashMap<>();
+        List<Object[]> saldos = lancamentoRepository
+                .obterSaldosPorUsuario(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+        for (Object[] saldo : saldos) {
+            calculados.put((Long) saldo[0], Dinheiro.deCentavos((Long) saldo[1]));
+        }
+
+        int corrigidos = 0;
+        for (SaldoUsuario gravado : gravados) {
+            Dinheiro calculado = calculados.remove(gravado.getIdUsuario());
+            if (calculado == null) {
+                calculado = Dinheiro.ZERO;
+            }
+            if (!gravado.getSaldo().equals(calculado)) {
+                corrigir(gravado, calculado);
+                corrigidos++;
+            }
+        }
+
+        // sem linha para travar, uma escrita concorrente pode criar a linha
+        // primeiro, já com o saldo calculado por ela
+        calculados.forEach(repository::inserirSeAusente);
+        return corrigidos + calculados.size();
+    }
+
+    /**
+     * Um saldo corrigido muda o que as consultas devolvem, então a versão
+     * também avança (senão um ETag antigo continuaria valendo).
+     */
+    private void corrigir(SaldoUsuario gravado, Dinheiro saldo) {
+        gravado.setSaldo(saldo);
+        gravado.setVersao(gravado.getVersao() + 1);
+    }
+
+    private Dinheiro calcularSaldo(Long idUsuario) {
+        Long receitas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(idUsuario, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+        Long despesas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuarioEStatus(idUsuario, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+
+        if (receitas == null) {
+            receitas = 0l;
+        }
+
+        if (despesas == null) {
+            despesas = 0l;
+        }
+
+        return Dinheiro.deCentavos(receitas - despesas);
+    }
+}
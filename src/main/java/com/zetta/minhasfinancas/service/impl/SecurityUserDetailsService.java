@@ -1,8 +1,11 @@
 package com.zetta.minhasfinancas.service.impl;
 
+import com.zetta.minhasfinancas.config.CacheConfiguration;
 import com.zetta.minhasfinancas.model.entity.Usuario;
 import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
-import org.springframework.security.core.userdetails.User;
+import com.zetta.minhasfinancas.service.UsuarioAutenticado;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,16 +20,22 @@ public class SecurityUserDetailsService implements UserDetailsService {
         this.usuarioRepository = usuarioRepository;
     }
 
+    /**
+     * Chamado pelo JwtTokenFilter em toda requisição autenticada, por isso
+     * o resultado fica em cache. O UsuarioService remove a entrada quando o
+     * usuário é alterado.
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfiguration.CACHE_USUARIOS)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Usuario usuarioEncontrado = usuarioRepository
                 .findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Email não cadastrado."));
 
-        return User.builder()
-                .username(usuarioEncontrado.getEmail())
-                .password(usuarioEncontrado.getSenha())
-                .roles("USER")
-                .build();
+        return new UsuarioAutenticado(
+                usuarioEncontrado.getId(),
+                usuarioEncontrado.getEmail(),
+                usuarioEncontrado.getSenha(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
     }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.zetta.minhasfinancas.service.impl;
 
+import com.zetta.minhasfinancas.config.CacheConfiguration;
 import com.zetta.minhasfinancas.exception.ErroAutenticacao;
 import com.zetta.minhasfinancas.exception.RegraNegocioException;
 import com.zetta.minhasfinancas.model.entity.Usuario;
 import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
 import com.zetta.minhasfinancas.service.UsuarioService;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -38,11 +40,21 @@ public class UsuarioServiceImpl implements UsuarioService {
         if(!senhasBatem) {
             throw new ErroAutenticacao("Senha inválida.");
         }
+
+        // hash gravado com força menor que senha.bcrypt.forca: refaz agora,
+        // que é o único momento em que a senha em claro está disponível.
+        // Só sobe: o BCrypt não considera força maior como desatualizada,
+        // então baixar senha.bcrypt.forca não refaz os hashes já gravados
+        if(encoder.upgradeEncoding(usuario.get().getSenha())) {
+            usuario.get().setSenha(encoder.encode(senha));
+            return repository.save(usuario.get());
+        }
         return usuario.get();
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.CACHE_USUARIOS, key = "#usuario.email", condition = "#usuario.email != null")
     public Usuario salvarUsuario(Usuario usuario) {
         validarEmail(usuario.getEmail());
         criptografarSenha(usuario);
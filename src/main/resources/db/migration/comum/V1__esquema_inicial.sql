@@ -0,0 +1,54 @@
+-- Esquema das entidades, em SQL aceito pelo PostgreSQL e pelo H2 dos testes.
+-- Tudo é "if not exists" porque os bancos que já existiam antes das
+-- migrações recebem o baseline na versão 0 e passam por este script também;
+-- as diferenças que eles possam ter são corrigidas em postgresql/V2.
+
+create table if not exists financas.usuario (
+    id bigint generated by default as identity primary key,
+    nome varchar(255),
+    email varchar(255),
+    senha varchar(255)
+);
+
+-- o índice único de email fica em V6, depois da verificação de emails
+-- repetidos que postgresql/V2 faz nos bancos que já existiam
+
+-- alocação em blocos de 50, como o @SequenceGenerator de Lancamento
+create sequence if not exists financas.lancamento_seq increment by 50;
+
+create table if not exists financas.lancamento (
+    id bigint not null primary key,
+    descricao varchar(255),
+    mes integer,
+    ano integer,
+    id_usuario bigint,
+    valor bigint,
+    data_cadastro timestamp,
+    tipo varchar(20),
+    status varchar(20),
+    constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+);
+
+-- id_usuario na frente: também é o índice da chave estrangeira
+create index if not exists idx_lancamento_usuario_ano_mes
+    on financas.lancamento (id_usuario, ano, mes, id);
+
+create index if not exists idx_lancamento_usuario_tipo_status
+    on financas.lancamento (id_usuario, tipo, status);
+
+create table if not exists financas.saldo_usuario (
+    id_usuario bigint not null primary key,
+    saldo bigint not null,
+    versao bigint default 1 not null
+);
+
+create table if not exists financas.resumo_mensal (
+    id_usuario bigint not null,
+    ano integer not null,
+    mes integer not null,
+    tipo varchar(20) not null,
+    status varchar(20) not null,
+    quantidade bigint not null,
+    total bigint not null,
+    primary key (id_usuario, ano, mes, tipo, status)
+);
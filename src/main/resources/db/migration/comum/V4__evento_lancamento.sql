@@ -0,0 +1,31 @@
+-- Registro de auditoria das escritas em lançamentos (ver
+-- AuditoriaLancamentoServiceImpl): uma linha por lançamento gravado ou
+-- removido, com o estado depois da escrita, quem a fez e quando. Só recebe
+-- inserts, em lotes, de uma thread fora das requisições; não tem chave
+-- estrangeira para que o registro continue depois que o lançamento sai.
+
+-- alocação em blocos de 50, como o @SequenceGenerator de EventoLancamento
+create sequence if not exists financas.evento_lancamento_seq increment by 50;
+
+create table if not exists financas.evento_lancamento (
+    id bigint not null primary key,
+    id_lancamento bigint not null,
+    id_usuario bigint not null,
+    id_autor bigint,
+    removido boolean not null,
+    descricao varchar(255),
+    mes integer,
+    ano integer,
+    valor bigint,
+    tipo varchar(20),
+    status varchar(20),
+    registrado_em timestamp not null
+);
+
+-- replay dos eventos do usuário e histórico de um lançamento, na ordem
+-- (registrado_em, id) das consultas
+create index if not exists idx_evento_lancamento_usuario
+    on financas.evento_lancamento (id_usuario, registrado_em, id);
+
+create index if not exists idx_evento_lancamento_lancamento
+    on financas.evento_lancamento (id_lancamento, registrado_em, id);
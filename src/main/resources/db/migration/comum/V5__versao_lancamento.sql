@@ -0,0 +1,14 @@
+-- Versão de cada lançamento, incrementada a cada escrita (@Version em
+-- Lancamento e nos UPDATEs em lote). Os eventos de auditoria guardam a versão
+-- que registram: o momento em registrado_em é capturado depois do commit e
+-- não basta para ordenar duas escritas seguidas no mesmo lançamento.
+alter table financas.lancamento add column versao bigint default 0 not null;
+
+-- os eventos anteriores ficam na versão 0 e seguem ordenados por
+-- (registrado_em, id), como antes
+alter table financas.evento_lancamento add column versao bigint default 0 not null;
+
+drop index if exists financas.idx_evento_lancamento_lancamento;
+
+create index if not exists idx_evento_lancamento_lancamento
+    on financas.evento_lancamento (id_lancamento, versao, registrado_em, id);
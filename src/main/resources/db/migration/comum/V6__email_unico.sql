@@ -0,0 +1,5 @@
+-- findByEmail/existsByEmail rodam no login e a cada requisição autenticada
+-- (quando o cache não atende); o email também é a chave natural de Usuario.
+-- Fora do V1 para que, no PostgreSQL, o V2 verifique antes os emails
+-- repetidos dos bancos que já existiam e falhe com a lista deles.
+create unique index if not exists uk_usuario_email on financas.usuario (email);
@@ -0,0 +1,49 @@
+-- Leva ao esquema do V1 os bancos criados antes das migrações, que podem
+-- estar em qualquer ponto dos antigos scripts avulsos de db/postgresql.
+-- Num banco novo nenhum destes passos muda nada.
+
+-- bancos que não passaram pelo antigo 004 podem ter emails repetidos, e o V6
+-- não conseguiria criar o índice único; em vez de escolher sozinha qual
+-- usuário fica (cada um pode ter lançamentos), a migração para e os lista
+do $$
+declare
+    repetidos text;
+begin
+    select string_agg(format('%s (ids %s)', email, ids), '; ') into repetidos
+    from (select email, string_agg(id::text, ', ' order by id) as ids
+          from financas.usuario where email is not null
+          group by email having count(*) > 1) r;
+    if repetidos is not null then
+        raise exception 'financas.usuario tem emails repetidos: %', repetidos
+            using hint = 'Junte ou remova os usuários repetidos e rode as migrações de novo.';
+    end if;
+end
+$$;
+
+-- versão dos lançamentos de cada usuário, usada como ETag do saldo e da listagem
+alter table financas.saldo_usuario add column if not exists versao bigint not null default 1;
+
+-- valores monetários de numeric(16, 2) para bigint em centavos (Dinheiro);
+-- só converte a coluna que ainda for numeric
+do $$
+declare
+    coluna record;
+begin
+    for coluna in
+        select table_name, column_name from information_schema.columns
+        where table_schema = 'financas' and data_type = 'numeric'
+          and (table_name, column_name) in (('lancamento', 'valor'), ('saldo_usuario', 'saldo'), ('resumo_mensal', 'total'))
+    loop
+        execute format('alter table financas.%I alter column %I type bigint using round(%I * 100)',
+                coluna.table_name, coluna.column_name, coluna.column_name);
+    end loop;
+end
+$$;
+
+-- a sequence pode ter sido criada agora, com lançamentos já gravados; o
+-- bloco reservado pelo otimizador pooled é [valor - 49, valor], então o
+-- próximo valor fica 50 acima do maior id e do último bloco entregue
+select setval('financas.lancamento_seq',
+              greatest(coalesce((select max(id) from financas.lancamento), 0) + 50,
+                       (select last_value from financas.lancamento_seq) + 50),
+              false);
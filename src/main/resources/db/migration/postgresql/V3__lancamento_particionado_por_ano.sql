@@ -0,0 +1,73 @@
+-- Lançamentos em partições por ano (particionamento declarativo, PostgreSQL
+-- 11 ou superior). As buscas e o resumo filtram por ano, então as partições
+-- fora do período ficam de fora do plano, e os índices de cada ano continuam
+-- pequenos conforme a tabela cresce.
+--
+-- A chave primária de uma tabela particionada precisa conter a coluna de
+-- partição, por isso passa a ser (id, ano); o id continua único porque vem
+-- da sequence. Com id na frente, o update/delete por id do Hibernate ainda
+-- usa o índice da chave em cada partição, e mudar o ano de um lançamento
+-- move a linha de partição.
+
+create extension if not exists pg_trgm;
+
+alter table financas.lancamento rename to lancamento_sem_particao;
+alter table financas.lancamento_sem_particao drop constraint if exists fk_lancamento_usuario;
+drop index if exists financas.idx_lancamento_usuario_ano_mes;
+drop index if exists financas.idx_lancamento_usuario_tipo_status;
+drop index if exists financas.idx_lancamento_descricao_trgm;
+
+create table financas.lancamento (
+    id bigint not null,
+    descricao varchar(255),
+    mes integer,
+    ano integer not null,
+    id_usuario bigint,
+    valor bigint,
+    data_cadastro timestamp,
+    tipo varchar(20),
+    status varchar(20),
+    constraint pk_lancamento primary key (id, ano),
+    constraint fk_lancamento_usuario foreign key (id_usuario) references financas.usuario (id)
+) partition by range (ano);
+
+-- um ano por partição num intervalo fixo, para a migração criar sempre as
+-- mesmas tabelas; anos fora dele (o serviço aceita qualquer ano de quatro
+-- dígitos) ficam na partição default. Novos anos entram por migração, antes
+-- de chegarem, já que uma partição não pode ser criada para um intervalo
+-- que a default já tenha linhas.
+do $$
+begin
+    for ano in 2015 .. 2040 loop
+        execute format('create table financas.lancamento_%s partition of financas.lancamento '
+                || 'for values from (%s) to (%s)', ano, ano, ano + 1);
+    end loop;
+end
+$$;
+
+create table financas.lancamento_outros_anos partition of financas.lancamento default;
+
+-- o serviço sempre exigiu o ano, então não há linhas sem ele para copiar
+insert into financas.lancamento (id, descricao, mes, ano, id_usuario, valor, data_cadastro, tipo, status)
+select id, descricao, mes, ano, id_usuario, valor, data_cadastro, tipo, status
+from financas.lancamento_sem_particao;
+
+drop table financas.lancamento_sem_particao;
+
+-- Índices criados na tabela particionada valem para todas as partições.
+-- Busca (LancamentoRepository.FILTRO) e paginação por cursor em
+-- (ano, mes, id); com id_usuario na frente é também o índice da chave
+-- estrangeira.
+create index idx_lancamento_usuario_ano_mes
+    on financas.lancamento (id_usuario, ano, mes, id);
+
+-- Saldo por usuário, tipo e status: com o valor no índice (include) a soma
+-- é feita só com index-only scan, sem ler as linhas.
+create index idx_lancamento_usuario_tipo_status
+    on financas.lancamento (id_usuario, tipo, status) include (valor);
+
+-- termo da descrição, procurado com like '%termo%' em lower(descricao)
+create index idx_lancamento_descricao_trgm
+    on financas.lancamento using gin (lower(descricao) gin_trgm_ops);
+
+analyze financas.lancamento;
@@ -0,0 +1,12 @@
+-- Só nos shards além do 0 (ver ShardingConfiguration), depois das
+-- migrações comuns e das do PostgreSQL.
+--
+-- A tabela usuario continua apenas no shard 0, então aqui a chave estrangeira
+-- de lancamento para usuario não teria o que referenciar.
+alter table financas.lancamento drop constraint if exists fk_lancamento_usuario;
+
+-- Cada shard gera ids numa faixa própria (shard * 2^48 em diante), para que
+-- um id nunca se repita entre shards: o otimizador do Hibernate guarda os
+-- blocos da sequence em memória e pode usar um bloco de um shard num insert
+-- de outro, e o rebalanceamento copia os lançamentos mantendo o id.
+alter sequence financas.lancamento_seq restart with ${inicio_ids};
@@ -0,0 +1,3 @@
+-- Mesma faixa de ids por shard de lancamento_seq (ver V10): os eventos
+-- também são copiados com o id pelo rebalanceamento.
+alter sequence financas.evento_lancamento_seq restart with ${inicio_ids};
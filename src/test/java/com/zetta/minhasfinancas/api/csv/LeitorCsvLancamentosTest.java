@@ -0,0 +1,83 @@
+package com.zetta.minhasfinancas.api.csv;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LeitorCsvLancamentosTest {
+
+    @Test
+    public void deveLerOsLancamentosDoCsv() throws Exception {
+        String csv = "ano;mes;descricao;valor;tipo\n"
+                + "2022;1;\"Mercado; feira\";1234,56;DESPESA\n"
+                + "\n"
+                + "2022;2;Salário;5000.00;RECEITA\n";
+
+        List<LancamentoDTO> lancamentos = LeitorCsvLancamentos.ler(new StringReader(csv));
+
+        assertThat(lancamentos).hasSize(2);
+        assertThat(lancamentos.get(0).getDescricao()).isEqualTo("Mercado; feira");
+        assertThat(lancamentos.get(0).getValor()).isEqualTo(Dinheiro.parse("1234.56"));
+        assertThat(lancamentos.get(0).getTipo()).isEqualTo("DESPESA");
+        assertThat(lancamentos.get(1).getMes()).isEqualTo(2);
+        assertThat(lancamentos.get(1).getAno()).isEqualTo(2022);
+    }
+
+    @Test
+    public void deveLerCamposEntreAspasComQuebraDeLinha() throws Exception {
+        String csv = "descricao;mes;ano;valor;tipo\n"
+                + "\"Mercado\n\nfeira; \"\"centro\"\"\";1;2022;10;DESPESA\n"
+                + "Luz;2;2022;20;DESPESA\n";
+
+        List<LancamentoDTO> lancamentos = LeitorCsvLancamentos.ler(new StringReader(csv));
+
+        assertThat(lancamentos).hasSize(2);
+        assertThat(lancamentos.get(0).getDescricao()).isEqualTo("Mercado\n\nfeira; \"centro\"");
+        assertThat(lancamentos.get(0).getValor()).isEqualTo(Dinheiro.parse("10"));
+        assertThat(lancamentos.get(0).getTipo()).isEqualTo("DESPESA");
+        assertThat(lancamentos.get(1).getDescricao()).isEqualTo("Luz");
+    }
+
+    @Test
+    public void deveDeixarNulosOsCamposQueNaoPuderemSerLidos() throws Exception {
+        String csv = "descricao,mes,ano,valor,tipo\nConta,treze,2022,abc\n";
+
+        LancamentoDTO lancamento = LeitorCsvLancamentos.ler(new StringReader(csv)).get(0);
+
+        assertThat(lancamento.getMes()).isNull();
+        assertThat(lancamento.getValor()).isNull();
+        assertThat(lancamento.getTipo()).isNull();
+    }
+
+    @Test
+    public void deveLancarErroQuandoFaltarUmaColuna() {
+        Throwable erro = Assertions.catchThrowable(
+                () -> LeitorCsvLancamentos.ler(new StringReader("descricao,mes,ano,valor\n")));
+
+        assertThat(erro).isInstanceOf(RegraNegocioException.class);
+    }
+
+    @Test
+    public void deveLerOQueOEscritorExportou() throws Exception {
+        StringWriter saida = new StringWriter();
+        EscritorCsvLancamentos escritor = new EscritorCsvLancamentos(saida);
+        escritor.escreverCabecalho();
+        escritor.escrever(LancamentoDTO.builder().id(1l).descricao("Conta \"luz\";\nágua").mes(5).ano(2021)
+                .valor(Dinheiro.parse("99.90")).tipo("DESPESA").status("EFETIVADO").build());
+
+        LancamentoDTO lido = LeitorCsvLancamentos.ler(new StringReader(saida.toString())).get(0);
+
+        assertThat(lido.getDescricao()).isEqualTo("Conta \"luz\";\nágua");
+        assertThat(lido.getValor()).isEqualTo(Dinheiro.parse("99.90"));
+        assertThat(lido.getMes()).isEqualTo(5);
+        assertThat(lido.getTipo()).isEqualTo("DESPESA");
+    }
+}
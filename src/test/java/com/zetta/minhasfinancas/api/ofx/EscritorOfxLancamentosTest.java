@@ -0,0 +1,35 @@
+package com.zetta.minhasfinancas.api.ofx;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EscritorOfxLancamentosTest {
+
+    @Test
+    public void deveEscreverUmaTransacaoPorLancamentoNaoCancelado() throws Exception {
+        StringWriter saida = new StringWriter();
+        EscritorOfxLancamentos escritor = new EscritorOfxLancamentos(saida);
+
+        escritor.escreverCabecalho(7l);
+        escritor.escrever(lancamento(1l, "Mercado & cia", "DESPESA", "EFETIVADO"));
+        escritor.escrever(lancamento(2l, "Estornado", "RECEITA", "CANCELADO"));
+        escritor.escreverRodape();
+
+        String ofx = saida.toString();
+        assertThat(ofx).startsWith("OFXHEADER:100");
+        assertThat(ofx).contains("<ACCTID>7\n");
+        assertThat(ofx).contains("<TRNTYPE>DEBIT\n<DTPOSTED>20220301\n<TRNAMT>-12.50\n<FITID>1\n<MEMO>Mercado &amp; cia\n");
+        assertThat(ofx).doesNotContain("Estornado");
+        assertThat(ofx).endsWith("</OFX>\n");
+    }
+
+    private static LancamentoDTO lancamento(Long id, String descricao, String tipo, String status) {
+        return LancamentoDTO.builder().id(id).descricao(descricao).mes(3).ano(2022)
+                .valor(Dinheiro.parse("12.50")).tipo(tipo).status(status).build();
+    }
+}
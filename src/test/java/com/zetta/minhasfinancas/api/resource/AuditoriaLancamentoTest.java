@@ -0,0 +1,170 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.JwtService;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class AuditoriaLancamentoTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    AuditoriaLancamentoService auditoriaService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    List<Usuario> usuarios = new ArrayList<>();
+    Usuario usuario;
+    String token;
+
+    @Before
+    public void setUp() {
+        usuario = criarUsuario();
+        token = "Bearer " + jwtService.gerarToken(usuario);
+    }
+
+    @After
+    public void tearDown() {
+        for (Usuario criado : usuarios) {
+            DadosDeTeste.apagarLancamentos(jdbc, auditoriaService, criado.getId());
+            usuarioRepository.delete(criado);
+        }
+    }
+
+    @Test
+    public void deveRegistrarCadaEscritaComOAutor() throws Exception {
+        Lancamento lancamento = salvar();
+        mvc.perform(put("/api/lancamentos/" + lancamento.getId() + "/atualiza-status")
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"EFETIVADO\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/lancamentos/" + lancamento.getId() + "/historico")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].lancamento.status").value("PENDENTE"))
+                .andExpect(jsonPath("$[0].autor").isEmpty())
+                .andExpect(jsonPath("$[1].lancamento.status").value("EFETIVADO"))
+                .andExpect(jsonPath("$[1].autor").value(usuario.getId()));
+    }
+
+    @Test
+    public void deveOrdenarOHistoricoPelaVersaoDoLancamento() throws Exception {
+        Lancamento lancamento = salvar();
+        lancamentoService.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+
+        // o momento é capturado depois do commit; simula a segunda escrita capturada antes da primeira
+        auditoriaService.descarregar();
+        jdbc.update("update financas.evento_lancamento set registrado_em = ? where id_lancamento = ? and versao = 1",
+                LocalDateTime.now().minusHours(1), lancamento.getId());
+
+        mvc.perform(get("/api/lancamentos/" + lancamento.getId() + "/historico")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lancamento.status").value("PENDENTE"))
+                .andExpect(jsonPath("$[1].lancamento.status").value("EFETIVADO"));
+        mvc.perform(get("/api/usuarios/" + usuario.getId() + "/saldo/reconstruido")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(lancamentoService.obterSaldoPorUsuario(usuario.getId()).toString()));
+    }
+
+    @Test
+    public void naoDeveMostrarOHistoricoDeLancamentoDeOutroUsuario() throws Exception {
+        Usuario outro = criarUsuario();
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(outro);
+        lancamento = lancamentoService.salvar(lancamento);
+
+        mvc.perform(get("/api/lancamentos/" + lancamento.getId() + "/historico")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/api/usuarios/" + outro.getId() + "/saldo/reconstruido")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void deveReconstruirOSaldoAtualEOdeUmMomentoAnterior() throws Exception {
+        Lancamento primeiro = salvar();
+        lancamentoService.atualizarStatus(primeiro.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+        Lancamento segundo = salvar();
+        lancamentoService.atualizarStatus(segundo.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+
+        Thread.sleep(5);
+        LocalDateTime antesDaExclusao = LocalDateTime.now();
+        Thread.sleep(5);
+        lancamentoService.deletar(segundo.getId(), usuario.getId());
+
+        Dinheiro saldo = lancamentoService.obterSaldoPorUsuario(usuario.getId());
+        mvc.perform(get("/api/usuarios/" + usuario.getId() + "/saldo/reconstruido")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(saldo.toString()));
+        mvc.perform(get("/api/usuarios/" + usuario.getId() + "/saldo/reconstruido")
+                        .param("ate", antesDaExclusao.toString())
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(saldo.somar(Dinheiro.parse("10")).toString()));
+    }
+
+    private Usuario criarUsuario() {
+        Usuario criado = usuarioRepository.save(Usuario.builder()
+                .nome("usuario").email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        usuarios.add(criado);
+        return criado;
+    }
+
+    private Lancamento salvar() {
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(usuario);
+        return lancamentoService.salvar(lancamento);
+    }
+}
@@ -0,0 +1,119 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.JwtService;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ConsultaCondicionalTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    AuditoriaLancamentoService auditoriaService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @SpyBean
+    LancamentoService lancamentoService;
+
+    Usuario usuario;
+    String token;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("usuario").email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        token = "Bearer " + jwtService.gerarToken(usuario);
+        salvarLancamento();
+    }
+
+    @After
+    public void tearDown() {
+        DadosDeTeste.apagarLancamentos(jdbc, auditoriaService, usuario.getId());
+        usuarioRepository.delete(usuario);
+    }
+
+    @Test
+    public void deveResponder304SemLerOSaldo() throws Exception {
+        String saldo = "/api/usuarios/" + usuario.getId() + "/saldo";
+        String etag = mvc.perform(get(saldo).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get(saldo).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(lancamentoService, Mockito.times(1)).obterSaldoPorUsuario(usuario.getId());
+    }
+
+    @Test
+    public void deveResponder304SemConsultarOsLancamentos() throws Exception {
+        String busca = "/api/lancamentos?usuario=" + usuario.getId();
+        String etag = mvc.perform(get(busca).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get(busca).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(lancamentoService, Mockito.times(1)).buscar(Mockito.any());
+    }
+
+    @Test
+    public void deveMudarOEtagDepoisDeUmaEscrita() throws Exception {
+        String busca = "/api/lancamentos?usuario=" + usuario.getId();
+        String etag = mvc.perform(get(busca).header(HttpHeaders.AUTHORIZATION, token))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        salvarLancamento();
+
+        String novoEtag = mvc.perform(get(busca).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(novoEtag).isNotEqualTo(etag);
+    }
+
+    private void salvarLancamento() {
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(usuario);
+        lancamentoService.salvar(lancamento);
+    }
+}
@@ -0,0 +1,26 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Os testes @SpringBootTest deste pacote confirmam as escritas (não há
+ * rollback) no mesmo banco H2 dos @DataJpaTest, e por isso apagam no @After
+ * o que gravaram para os seus usuários.
+ */
+final class DadosDeTeste {
+
+    private static final String[] TABELAS = { "evento_lancamento", "resumo_mensal", "saldo_usuario", "lancamento" };
+
+    private DadosDeTeste() {
+    }
+
+    /** Tudo do usuário, menos a linha em usuario (apague pelo repositório, que tem cache). */
+    static void apagarLancamentos(JdbcTemplate jdbc, AuditoriaLancamentoService auditoria, Long idUsuario) {
+        // o registro de auditoria grava depois do commit, em segundo plano
+        auditoria.descarregar();
+        for (String tabela : TABELAS) {
+            jdbc.update("delete from financas." + tabela + " where id_usuario = ?", idUsuario);
+        }
+    }
+}
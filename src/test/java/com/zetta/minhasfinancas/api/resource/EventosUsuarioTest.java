@@ -0,0 +1,107 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.JwtService;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class EventosUsuarioTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    AuditoriaLancamentoService auditoriaService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    Usuario usuario;
+    String token;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(Usuario.builder()
+                .nome("usuario").email(UUID.randomUUID() + "@email.com").senha("senha").build());
+        token = "Bearer " + jwtService.gerarToken(usuario);
+    }
+
+    @After
+    public void tearDown() {
+        DadosDeTeste.apagarLancamentos(jdbc, auditoriaService, usuario.getId());
+        usuarioRepository.delete(usuario);
+    }
+
+    @Test
+    public void deveEnviarOLancamentoEOSaldoDepoisDoCommit() throws Exception {
+        MvcResult stream = mvc.perform(get("/api/usuarios/" + usuario.getId() + "/eventos")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(usuario);
+        lancamento = lancamentoService.salvar(lancamento);
+        lancamentoService.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+
+        String conteudo = aguardar(stream.getResponse(), "EFETIVADO");
+        assertThat(conteudo).contains("event:lancamento");
+        assertThat(conteudo).contains("\"id\":" + lancamento.getId());
+        assertThat(conteudo).contains("\"saldo\":10");
+    }
+
+    @Test
+    public void naoDeveInscreverEmEventosDeOutroUsuario() throws Exception {
+        mvc.perform(get("/api/usuarios/" + (usuario.getId() + 1000) + "/eventos")
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+    }
+
+    private String aguardar(MockHttpServletResponse resposta, String trecho) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        String conteudo = resposta.getContentAsString();
+        while (!conteudo.contains(trecho) && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+            conteudo = resposta.getContentAsString();
+        }
+        return conteudo;
+    }
+}
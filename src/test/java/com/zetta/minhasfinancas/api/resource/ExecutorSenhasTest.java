@@ -0,0 +1,82 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.config.SenhaConfiguration;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.EventosUsuarioService;
+import com.zetta.minhasfinancas.service.JwtService;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.UsuarioService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * UsuarioResource com o executor de senhas saturado: uma thread ocupada e
+ * fila zero, então a próxima tarefa é rejeitada.
+ */
+public class ExecutorSenhasTest {
+
+    CountDownLatch liberar = new CountDownLatch(1);
+    ThreadPoolTaskExecutor executor;
+    UsuarioService service;
+    MockMvc mvc;
+
+    @Before
+    public void setUp() {
+        executor = new SenhaConfiguration().executorSenhas(1, 0);
+        executor.initialize();
+        executor.execute(() -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        service = Mockito.mock(UsuarioService.class);
+        mvc = MockMvcBuilders.standaloneSetup(new UsuarioResource(service,
+                        Mockito.mock(LancamentoService.class),
+                        Mockito.mock(JwtService.class),
+                        Mockito.mock(EventosUsuarioService.class),
+                        Mockito.mock(AuditoriaLancamentoService.class),
+                        executor))
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        liberar.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void deveResponderServicoIndisponivelComRetryAfterQuandoOExecutorEstaCheio() throws Exception {
+        for (String caminho : new String[] { "/api/usuarios/autenticar", "/api/usuarios" }) {
+            MvcResult resultado = mvc.perform(post(caminho)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\":\"usuario@email.com\",\"senha\":\"senha\"}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        }
+        Mockito.verifyNoInteractions(service);
+    }
+}
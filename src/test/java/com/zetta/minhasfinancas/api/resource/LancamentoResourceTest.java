@@ -0,0 +1,125 @@
+package com.zetta.minhasfinancas.api.resource;
+
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.JwtService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class LancamentoResourceTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    AuditoriaLancamentoService auditoriaService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    Usuario usuario;
+    Usuario outro;
+    String token;
+
+    @Before
+    public void setUp() {
+        usuario = criarUsuario();
+        outro = criarUsuario();
+        token = "Bearer " + jwtService.gerarToken(usuario);
+    }
+
+    @After
+    public void tearDown() {
+        for (Usuario criado : new Usuario[] { usuario, outro }) {
+            DadosDeTeste.apagarLancamentos(jdbc, auditoriaService, criado.getId());
+            usuarioRepository.delete(criado);
+        }
+    }
+
+    @Test
+    public void deveImportarApenasNaContaDoUsuarioAutenticado() throws Exception {
+        mvc.perform(post("/api/lancamentos/lote")
+                        .param("usuario", outro.getId().toString())
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"descricao\":\"json\",\"mes\":1,\"ano\":2022,\"valor\":10,\"tipo\":\"RECEITA\","
+                                + "\"usuario\":" + outro.getId() + "}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.importados").value(1));
+        mvc.perform(post("/api/lancamentos/lote")
+                        .param("usuario", outro.getId().toString())
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType("text/csv")
+                        .content("descricao;mes;ano;valor;tipo\ncsv;1;2022;10;DESPESA\n"))
+                .andExpect(status().isCreated());
+
+        assertThat(contarLancamentos(usuario)).isEqualTo(2);
+        assertThat(contarLancamentos(outro)).isZero();
+    }
+
+    @Test
+    public void naoDeveExportarOsLancamentosDeOutroUsuario() throws Exception {
+        mvc.perform(get("/api/lancamentos/export")
+                        .param("usuario", outro.getId().toString())
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/api/lancamentos/export")
+                        .param("usuario", usuario.getId().toString())
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void naoDevePaginarNemPercorrerOsLancamentosDeOutroUsuario() throws Exception {
+        for (String caminho : new String[] { "/api/lancamentos/pagina", "/api/lancamentos/stream" }) {
+            mvc.perform(get(caminho)
+                            .param("usuario", outro.getId().toString())
+                            .header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isForbidden());
+            mvc.perform(get(caminho)
+                            .param("usuario", usuario.getId().toString())
+                            .header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private int contarLancamentos(Usuario dono) {
+        return jdbc.queryForObject("select count(*) from financas.lancamento where id_usuario = ?",
+                Integer.class, dono.getId());
+    }
+
+    private Usuario criarUsuario() {
+        return usuarioRepository.save(Usuario.builder()
+                .nome("usuario").email(UUID.randomUUID() + "@email.com").senha("senha").build());
+    }
+}
@@ -0,0 +1,96 @@
+package com.zetta.minhasfinancas.carga;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.ResumoMensalService;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Popula o banco do teste de carga pelos repositórios: N usuários, todos com a
+ * mesma senha (o hash BCrypt é calculado uma vez só), e M lançamentos por
+ * usuário gravados em blocos. Como a gravação direta não passa pelos serviços,
+ * saldo_usuario e resumo_mensal são reconstruídos no final.
+ */
+@RequiredArgsConstructor
+class GeradorDados {
+
+    static final String SENHA = "senha";
+
+    private static final int BLOCO = 1000;
+    private static final String[] DESCRICOES = {
+            "Salário", "Aluguel", "Mercado", "Farmácia", "Combustível", "Internet", "Restaurante", "Academia"
+    };
+
+    private final UsuarioRepository usuarioRepository;
+    private final LancamentoRepository lancamentoRepository;
+    private final SaldoUsuarioService saldoService;
+    private final ResumoMensalService resumoService;
+    private final PasswordEncoder encoder;
+
+    List<UsuarioGerado> gerar(int usuarios, int lancamentosPorUsuario, long semente) {
+        Random random = new Random(semente);
+        String hash = encoder.encode(SENHA);
+        // prefixo próprio por execução: no PostgreSQL local os dados de
+        // execuções anteriores continuam lá e o email é único
+        String prefixo = "carga" + System.currentTimeMillis();
+
+        List<UsuarioGerado> gerados = new ArrayList<>(usuarios);
+        for (int i = 0; i < usuarios; i++) {
+            Usuario usuario = usuarioRepository.save(Usuario.builder()
+                    .nome("Usuário " + i)
+                    .email(prefixo + "." + i + "@carga.com")
+                    .senha(hash)
+                    .build());
+
+            UsuarioGerado gerado = new UsuarioGerado(usuario.getId(), usuario.getEmail());
+            List<Lancamento> bloco = new ArrayList<>(BLOCO);
+            for (int j = 0; j < lancamentosPorUsuario; j++) {
+                bloco.add(lancamento(usuario, random));
+                if (bloco.size() == BLOCO || j == lancamentosPorUsuario - 1) {
+                    lancamentoRepository.saveAll(bloco).forEach(l -> gerado.lancamentos.add(l.getId()));
+                    bloco.clear();
+                }
+            }
+            gerados.add(gerado);
+        }
+
+        saldoService.reconciliar();
+        resumoService.reconstruirTodos();
+        return gerados;
+    }
+
+    static Lancamento lancamento(Usuario usuario, Random random) {
+        int anoAtual = LocalDate.now().getYear();
+        return Lancamento.builder()
+                .usuario(usuario)
+                .descricao(DESCRICOES[random.nextInt(DESCRICOES.length)])
+                .ano(anoAtual - random.nextInt(2))
+                .mes(1 + random.nextInt(12))
+                .valor(Dinheiro.deCentavos(100 + random.nextInt(500_000)))
+                .tipo(random.nextInt(4) == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+                .status(StatusLancamento.values()[random.nextInt(StatusLancamento.values().length)])
+                .dataCadastro(LocalDate.now())
+                .build();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class UsuarioGerado {
+        private final Long id;
+        private final String email;
+        private final List<Long> lancamentos = new ArrayList<>();
+    }
+}
@@ -0,0 +1,82 @@
+package com.zetta.minhasfinancas.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências (HdrHistogram, em microssegundos) e erros por endpoint durante a
+ * janela medida do teste de carga.
+ */
+class RelatorioCarga {
+
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void registrar(String endpoint, long nanos, boolean sucesso) {
+        Endpoint e = endpoints.computeIfAbsent(endpoint, nome -> new Endpoint());
+        e.latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), LATENCIA_MAXIMA_US));
+        if (!sucesso) {
+            e.erros.increment();
+        }
+    }
+
+    Map<String, Resumo> resumir(double segundos) {
+        Map<String, Resumo> resumos = new LinkedHashMap<>();
+        endpoints.keySet().stream().sorted()
+                .forEach(nome -> resumos.put(nome, new Resumo(endpoints.get(nome), segundos)));
+        return resumos;
+    }
+
+    static String formatar(Map<String, Resumo> resumos) {
+        StringBuilder texto = new StringBuilder(String.format("%-22s %9s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "req", "req/s", "erros", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        resumos.forEach((nome, r) -> texto.append(String.format("%-22s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                nome, r.requisicoes, r.vazao, r.erros, r.p50, r.p95, r.p99, r.maximo)));
+        return texto.toString();
+    }
+
+    static void gravar(Path arquivo, Map<String, Object> execucao) throws IOException {
+        Files.createDirectories(arquivo.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(arquivo.toFile(), execucao);
+    }
+
+    private static class Endpoint {
+        private final Histogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+        private final LongAdder erros = new LongAdder();
+    }
+
+    @Getter
+    static class Resumo {
+        private final long requisicoes;
+        private final long erros;
+        private final double vazao;
+        private final double p50;
+        private final double p95;
+        private final double p99;
+        private final double maximo;
+
+        private Resumo(Endpoint endpoint, double segundos) {
+            Histogram h = endpoint.latencias;
+            this.requisicoes = h.getTotalCount();
+            this.erros = endpoint.erros.sum();
+            this.vazao = requisicoes / segundos;
+            this.p50 = h.getValueAtPercentile(50) / 1000.0;
+            this.p95 = h.getValueAtPercentile(95) / 1000.0;
+            this.p99 = h.getValueAtPercentile(99) / 1000.0;
+            this.maximo = h.getMaxValue() / 1000.0;
+        }
+    }
+}
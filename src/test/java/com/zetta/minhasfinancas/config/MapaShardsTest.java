@@ -0,0 +1,50 @@
+package com.zetta.minhasfinancas.config;
+
+import org.junit.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MapaShardsTest {
+
+    @Test
+    public void deveDividirOsBucketsPorIgualQuandoNaoHaMapa() {
+        MapaShards mapa = MapaShards.de(3, 12, null);
+
+        assertThat(mapa.descrever()).isEqualTo("0-3:0,4-7:1,8-11:2");
+    }
+
+    @Test
+    public void deveAceitarOMapaQueEleMesmoDescreve() {
+        MapaShards mapa = MapaShards.de(2, 1024, " 0-99:1, 100-1023:0 ");
+
+        assertThat(MapaShards.de(2, 1024, mapa.descrever()).descrever()).isEqualTo("0-99:1,100-1023:0");
+    }
+
+    @Test
+    public void deveEspalharIdsSequenciaisEntreOsShards() {
+        MapaShards mapa = MapaShards.de(4, 1024, null);
+
+        long[] porShard = new long[4];
+        LongStream.rangeClosed(1, 10_000).forEach(id -> porShard[mapa.shardDoUsuario(id)]++);
+
+        for (long quantidade : porShard) {
+            assertThat(quantidade).isBetween(2_200l, 2_800l);
+        }
+        assertThat(mapa.shardDoUsuario(42)).isEqualTo(MapaShards.de(4, 1024, mapa.descrever()).shardDoUsuario(42));
+    }
+
+    @Test
+    public void deveRecusarMapaQueNaoCobreTodosOsBucketsUmaVez() {
+        assertThat(catchThrowable(() -> MapaShards.de(2, 8, "0-3:0,5-7:1")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Bucket 4");
+        assertThat(catchThrowable(() -> MapaShards.de(2, 8, "0-4:0,4-7:1")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("mais de uma faixa");
+        assertThat(catchThrowable(() -> MapaShards.de(2, 8, "0-7:2")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Shard inexistente");
+        assertThat(catchThrowable(() -> MapaShards.de(2, 8, "0-9:0")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Faixa inválida");
+    }
+}
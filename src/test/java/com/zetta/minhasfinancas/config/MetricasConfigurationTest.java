@@ -0,0 +1,53 @@
+package com.zetta.minhasfinancas.config;
+
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class MetricasConfigurationTest {
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    ContadorStatements contadorStatements;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void deveMedirAsChamadasAoServico() {
+        usuarioService.validarEmail("metricas@email.com");
+
+        Timer timer = registry.find("financas.servico")
+                .tag("class", "UsuarioServiceImpl")
+                .tag("method", "validarEmail")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void deveContarOsStatementsDaThread() {
+        contadorStatements.iniciar();
+        usuarioRepository.existsByEmail("metricas@email.com");
+        usuarioRepository.existsByEmail("metricas@email.com");
+
+        assertThat(contadorStatements.finalizar()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,109 @@
+package com.zetta.minhasfinancas.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Primário e réplica são dois H2 em memória, cada um com uma tabela que diz
+ * de qual banco a leitura veio.
+ */
+public class RoteamentoDataSourceTest {
+
+    AtomicReference<Long> usuarioAtual = new AtomicReference<>();
+    JdbcTemplate primario;
+    JdbcTemplate replica;
+    RoteamentoDataSource roteamento;
+    JdbcTemplate jdbc;
+    TransactionTemplate leitura;
+    TransactionTemplate escrita;
+
+    @Before
+    public void setUp() {
+        primario = new JdbcTemplate(banco("primario"));
+        replica = new JdbcTemplate(banco("replica"));
+        replica.execute("create table atraso (segundos int)");
+        replica.update("insert into atraso values (0)");
+
+        RoteamentoDataSourceProperties propriedades = new RoteamentoDataSourceProperties();
+        propriedades.setJanelaNoPrimario(Duration.ofMinutes(1));
+        propriedades.setConsultaAtraso("select segundos from atraso");
+        propriedades.setAtrasoMaximo(Duration.ofSeconds(10));
+        roteamento = new RoteamentoDataSource(primario.getDataSource(),
+                Collections.singletonMap("replica-1", replica.getDataSource()), propriedades, usuarioAtual::get);
+        roteamento.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+        jdbc = new JdbcTemplate(dataSource);
+        escrita = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        leitura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        leitura.setReadOnly(true);
+    }
+
+    @Test
+    public void deveMandarSoAsTransacoesSomenteLeituraParaAReplica() {
+        assertThat(origemEm(leitura)).isEqualTo("replica");
+        assertThat(origemEm(escrita)).isEqualTo("primario");
+        assertThat(origem()).isEqualTo("primario");
+    }
+
+    @Test
+    public void deveManterNoPrimarioAsLeiturasDeQuemAcabouDeEscrever() {
+        usuarioAtual.set(1l);
+        escrita.executeWithoutResult(status -> jdbc.update("update origem set nome = nome"));
+        assertThat(origemEm(leitura)).isEqualTo("primario");
+
+        usuarioAtual.set(2l);
+        assertThat(origemEm(leitura)).isEqualTo("replica");
+
+        usuarioAtual.set(3l);
+        escrita.executeWithoutResult(status -> {
+            jdbc.update("update origem set nome = nome");
+            status.setRollbackOnly();
+        });
+        assertThat(origemEm(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    public void deveTirarDoRodizioAReplicaAtrasadaEDevolverQuandoSeRecuperar() {
+        replica.update("update atraso set segundos = 60");
+        roteamento.verificarReplicas();
+
+        assertThat(roteamento.contarReplicasDisponiveis()).isZero();
+        assertThat(origemEm(leitura)).isEqualTo("primario");
+
+        replica.update("update atraso set segundos = 1");
+        roteamento.verificarReplicas();
+
+        assertThat(roteamento.contarReplicasDisponiveis()).isEqualTo(1);
+        assertThat(origemEm(leitura)).isEqualTo("replica");
+    }
+
+    private String origemEm(TransactionTemplate transacao) {
+        return transacao.execute(status -> origem());
+    }
+
+    private String origem() {
+        return jdbc.queryForObject("select nome from origem", String.class);
+    }
+
+    private static DataSource banco(String nome) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:roteamento-" + nome + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table origem (nome varchar(20))");
+        jdbc.update("insert into origem values (?)", nome);
+        return dataSource;
+    }
+}
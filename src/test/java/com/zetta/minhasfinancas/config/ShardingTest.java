@@ -0,0 +1,169 @@
+package com.zetta.minhasfinancas.config;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.service.AuditoriaLancamentoService;
+import com.zetta.minhasfinancas.service.LancamentoFiltro;
+import com.zetta.minhasfinancas.service.LancamentoService;
+import com.zetta.minhasfinancas.service.ResumoMensalService;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Três bancos H2 em memória: o shard 0 (spring.datasource, com a tabela
+ * usuario) e mais dois. Cada teste cria um usuário em cada shard.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+        "sharding.habilitado=true",
+        "sharding.shards[0].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+        "sharding.shards[1].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas" })
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ShardingTest {
+
+    @Autowired
+    LancamentoService service;
+
+    @Autowired
+    SaldoUsuarioService saldoUsuarioService;
+
+    @Autowired
+    ResumoMensalService resumoMensalService;
+
+    @Autowired
+    AuditoriaLancamentoService auditoriaService;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    MapaShards mapa;
+
+    @Autowired
+    ShardDataSource shardDataSource;
+
+    /** Na posição de cada shard, um usuário que cai nele. */
+    List<Usuario> usuarios = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        while (usuarios.size() < mapa.getQuantidade()) {
+            usuarios.add(null);
+        }
+        while (usuarios.contains(null)) {
+            Usuario usuario = usuarioRepository.save(Usuario.builder()
+                    .nome("usuario").email(UUID.randomUUID() + "@email.com").senha("senha").build());
+            usuarios.set(mapa.shardDoUsuario(usuario.getId()), usuario);
+        }
+    }
+
+    @Test
+    public void deveGravarELerOsLancamentosNoShardDoUsuario() {
+        for (int shard = 0; shard < usuarios.size(); shard++) {
+            Usuario usuario = usuarios.get(shard);
+            Lancamento lancamento = lancamentoDe(usuario);
+            service.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+
+            for (int outro = 0; outro < usuarios.size(); outro++) {
+                assertThat(contar(outro, "lancamento", usuario)).isEqualTo(outro == shard ? 1 : 0);
+                assertThat(contar(outro, "saldo_usuario", usuario)).isEqualTo(outro == shard ? 1 : 0);
+            }
+            assertThat(service.buscar(LancamentoFiltro.builder().idUsuario(usuario.getId()).build()))
+                    .extracting("id").containsExactly(lancamento.getId());
+            assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.parse("10"));
+            assertThat(service.obterResumoMensal(usuario.getId(), 2019, 2019)).hasSize(1);
+            assertThat(service.obterPorId(lancamento.getId())).isPresent();
+            assertThat(auditoriaService.obterHistorico(lancamento.getId(), usuario.getId())).hasSize(2);
+            for (int outro = 0; outro < usuarios.size(); outro++) {
+                assertThat(contar(outro, "evento_lancamento", usuario)).isEqualTo(outro == shard ? 2 : 0);
+            }
+        }
+    }
+
+    @Test
+    public void deveRefazerAsProjecoesEmTodosOsShards() {
+        usuarios.forEach(this::lancamentoDe);
+        shardDataSource.getShards().forEach(shard -> new JdbcTemplate(shard).update("delete from financas.resumo_mensal"));
+
+        saldoUsuarioService.reconciliar();
+        resumoMensalService.reconstruirTodos();
+
+        for (int shard = 0; shard < usuarios.size(); shard++) {
+            assertThat(contar(shard, "resumo_mensal", usuarios.get(shard))).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void deveMoverParaOShardNovoOsUsuariosQueMudaramDeShard() {
+        usuarios.forEach(this::lancamentoDe);
+        auditoriaService.descarregar();
+        MapaShards tudoNoShardZero = MapaShards.de(mapa.getQuantidade(), mapa.getBuckets(), "0-" + (mapa.getBuckets() - 1) + ":0");
+        RebalanceamentoShards rebalanceamento = new RebalanceamentoShards(shardDataSource.getShards(), tudoNoShardZero);
+
+        assertThat(rebalanceamento.executar()).isGreaterThanOrEqualTo(usuarios.size() - 1);
+
+        for (Usuario usuario : usuarios) {
+            for (String tabela : RebalanceamentoShards.TABELAS) {
+                assertThat(contar(0, tabela, usuario)).isEqualTo(1);
+                assertThat(contar(1, tabela, usuario) + contar(2, tabela, usuario)).isZero();
+            }
+        }
+        assertThat(rebalanceamento.executar()).isZero();
+
+        // de volta ao mapa da aplicação, para os outros testes
+        new RebalanceamentoShards(shardDataSource.getShards(), mapa).executar();
+    }
+
+    @Test
+    public void deveMoverOsEventosDeQuemNaoTemMaisLancamentos() {
+        Usuario usuario = usuarios.get(usuarios.size() - 1);
+        Lancamento lancamento = lancamentoDe(usuario);
+        service.deletar(lancamento.getId(), usuario.getId());
+        auditoriaService.descarregar();
+        JdbcTemplate shard = new JdbcTemplate(shardDataSource.getShards().get(usuarios.size() - 1));
+        for (String tabela : RebalanceamentoShards.TABELAS) {
+            if (!tabela.equals("evento_lancamento")) {
+                shard.update("delete from financas." + tabela + " where id_usuario = ?", usuario.getId());
+            }
+        }
+        MapaShards tudoNoShardZero = MapaShards.de(mapa.getQuantidade(), mapa.getBuckets(), "0-" + (mapa.getBuckets() - 1) + ":0");
+
+        new RebalanceamentoShards(shardDataSource.getShards(), tudoNoShardZero).executar();
+
+        assertThat(contar(0, "evento_lancamento", usuario)).isEqualTo(2);
+        assertThat(contar(usuarios.size() - 1, "evento_lancamento", usuario)).isZero();
+
+        new RebalanceamentoShards(shardDataSource.getShards(), mapa).executar();
+    }
+
+    private Lancamento lancamentoDe(Usuario usuario) {
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(usuario);
+        return service.salvar(lancamento);
+    }
+
+    private int contar(int shard, String tabela, Usuario usuario) {
+        return new JdbcTemplate(shardDataSource.getShards().get(shard)).queryForObject(
+                "select count(*) from financas." + tabela + " where id_usuario = ?", Integer.class, usuario.getId());
+    }
+}
@@ -0,0 +1,29 @@
+package com.zetta.minhasfinancas.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class ThreadsVirtuaisConfigurationTest {
+
+    @Test
+    public void deveCriarOExecutorSomenteEmJvmComThreadsVirtuais() throws Exception {
+        Optional<ExecutorService> executor = ThreadsVirtuaisConfiguration.executorDeThreadsVirtuais();
+
+        if (Runtime.version().feature() < 21) {
+            Assertions.assertThat(executor).isEmpty();
+            return;
+        }
+
+        Assertions.assertThat(executor).isPresent();
+        try {
+            Future<String> thread = executor.get().submit(() -> Thread.currentThread().toString());
+            Assertions.assertThat(thread.get()).startsWith("VirtualThread");
+        } finally {
+            executor.get().shutdown();
+        }
+    }
+}
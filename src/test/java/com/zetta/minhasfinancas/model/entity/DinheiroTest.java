@@ -0,0 +1,86 @@
+package com.zetta.minhasfinancas.model.entity;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DinheiroTest {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void deveLerDecimaisEmCentavos() {
+        assertThat(Dinheiro.parse("10").getCentavos()).isEqualTo(1000);
+        assertThat(Dinheiro.parse("10.5").getCentavos()).isEqualTo(1050);
+        assertThat(Dinheiro.parse("-0.05").getCentavos()).isEqualTo(-5);
+        assertThat(Dinheiro.parse("+.99").getCentavos()).isEqualTo(99);
+        assertThat(Dinheiro.parse("1e3").getCentavos()).isEqualTo(100000);
+    }
+
+    @Test
+    public void deveArredondarAsCasasAlemDosCentavosComHalfUp() {
+        assertThat(Dinheiro.parse("1.005")).isEqualTo(Dinheiro.parse("1.01"));
+        assertThat(Dinheiro.parse("1.00499")).isEqualTo(Dinheiro.parse("1.00"));
+        assertThat(Dinheiro.parse("-1.005")).isEqualTo(Dinheiro.parse("-1.01"));
+        assertThat(Dinheiro.de(new BigDecimal("2.675"))).isEqualTo(Dinheiro.parse("2.68"));
+    }
+
+    @Test
+    public void deveRecusarTextoQueNaoEDecimalOuNaoCabeNumLong() {
+        for (String invalido : new String[] { "", "-", "1,50", "1.2.3", "abc", "92233720368547758.08" }) {
+            Assertions.assertThatThrownBy(() -> Dinheiro.parse(invalido))
+                    .as(invalido)
+                    .isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void deveConferirOExpoenteDaNotacaoCientificaAntesDeArredondar() {
+        assertThat(Dinheiro.parse("1.5e3").getCentavos()).isEqualTo(150000);
+        assertThat(Dinheiro.parse("1e-99999999")).isEqualTo(Dinheiro.ZERO);
+        for (String invalido : new String[] { "1e99999999", "-1E99999999", "1e19", "9.3e16" }) {
+            Assertions.assertThatThrownBy(() -> Dinheiro.parse(invalido))
+                    .as(invalido)
+                    .isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test
+    public void deveEscreverSempreComDuasCasas() {
+        assertThat(Dinheiro.ZERO.toString()).isEqualTo("0.00");
+        assertThat(Dinheiro.deCentavos(5).toString()).isEqualTo("0.05");
+        assertThat(Dinheiro.deCentavos(-1205).toString()).isEqualTo("-12.05");
+        assertThat(Dinheiro.deCentavos(Long.MIN_VALUE).toString()).isEqualTo("-92233720368547758.08");
+        assertThat(Dinheiro.deCentavos(Long.MAX_VALUE).toString()).isEqualTo("92233720368547758.07");
+    }
+
+    @Test
+    public void deveIrEVoltarDoJsonComoNumero() throws Exception {
+        LancamentoDTO lancamento = LancamentoDTO.builder().valor(Dinheiro.parse("1234.5")).build();
+
+        String json = mapper.writeValueAsString(lancamento);
+
+        assertThat(json).contains("\"valor\":1234.50");
+        assertThat(mapper.readValue(json, LancamentoDTO.class).getValor()).isEqualTo(Dinheiro.parse("1234.50"));
+        assertThat(mapper.readValue("{\"valor\":\"7.1\"}", LancamentoDTO.class).getValor())
+                .isEqualTo(Dinheiro.parse("7.10"));
+        assertThat(mapper.readValue("{\"valor\":3}", LancamentoDTO.class).getValor())
+                .isEqualTo(Dinheiro.parse("3"));
+    }
+
+    @Test
+    public void deveRecusarValorInvalidoNoJson() {
+        Assertions.assertThatThrownBy(() -> mapper.readValue("{\"valor\":\"dez\"}", LancamentoDTO.class))
+                .isInstanceOf(JsonMappingException.class);
+        Assertions.assertThatThrownBy(() -> mapper.readValue("{\"valor\":true}", LancamentoDTO.class))
+                .isInstanceOf(JsonMappingException.class);
+        Assertions.assertThatThrownBy(() -> mapper.readValue("{\"valor\":1e99999999}", LancamentoDTO.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+}
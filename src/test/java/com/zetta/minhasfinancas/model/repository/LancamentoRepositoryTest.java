@@ -1,8 +1,12 @@
 package com.zetta.minhasfinancas.model.repository;
 
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
 import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
 import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.service.LancamentoFiltro;
 
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
@@ -12,12 +16,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -76,12 +84,114 @@ public class LancamentoRepositoryTest {
 
         assertThat(encontrado).isNotNull();
     }
+    @Test
+    public void deveBuscarAProximaPaginaAPartirDoCursor() {
+        Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+        criarEPersistirLancamento(usuario, 2020, 1);
+        criarEPersistirLancamento(usuario, 2019, 2);
+        criarEPersistirLancamento(usuario, 2019, 1);
+
+        List<LancamentoDTO> primeira = repository.buscarPagina(
+                usuario.getId(), null, null, null, null, "%", 0, 0, 0l, PageRequest.of(0, 2));
+        LancamentoDTO ultimo = primeira.get(1);
+        List<LancamentoDTO> segunda = repository.buscarPagina(
+                usuario.getId(), null, null, null, null, "%", ultimo.getAno(), ultimo.getMes(), ultimo.getId(), PageRequest.of(0, 2));
+
+        assertThat(primeira).extracting(LancamentoDTO::getMes).containsExactly(1, 2);
+        assertThat(primeira).extracting(LancamentoDTO::getUsuario).containsOnly(usuario.getId());
+        assertThat(segunda).hasSize(1);
+        assertThat(segunda.get(0).getAno()).isEqualTo(2020);
+    }
+
+    @Test
+    public void devePercorrerOsLancamentosDoUsuarioEmOrdem() {
+        Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+        criarEPersistirLancamento(usuario, 2020, 1);
+        criarEPersistirLancamento(usuario, 2019, 2);
+
+        List<Integer> anos;
+        try (Stream<LancamentoDTO> lancamentos = repository.percorrer(usuario.getId(), null, null, null, null, "%teste%")) {
+            anos = lancamentos.map(LancamentoDTO::getAno).collect(Collectors.toList());
+        }
+
+        assertThat(anos).containsExactly(2019, 2020);
+    }
+
+    @Test
+    public void deveBuscarPorIgualdadeEPeloTermoDaDescricao() {
+        Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+        Lancamento aluguel = criarEPersistirLancamento(usuario, 2019, 1);
+        aluguel.setDescricao("Aluguel de Janeiro");
+        aluguel.setTipo(TipoLancamento.DESPESA);
+        criarEPersistirLancamento(usuario, 2019, 1);
+        criarEPersistirLancamento(usuario, 2020, 1).setDescricao("Aluguel de 2020");
+
+        List<LancamentoDTO> encontrados = repository.buscar(
+                usuario.getId(), 2019, 1, TipoLancamento.DESPESA, null, "%aluguel%");
+
+        assertThat(encontrados).extracting(LancamentoDTO::getId).containsExactly(aluguel.getId());
+        assertThat(encontrados).extracting(LancamentoDTO::getUsuario).containsExactly(usuario.getId());
+    }
+
+    @Test
+    public void deveTratarCuringasDoTermoComoTexto() {
+        Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+        Lancamento desconto = criarEPersistirLancamento(usuario, 2019, 1);
+        desconto.setDescricao("Desconto de 50% na_loja");
+        criarEPersistirLancamento(usuario, 2019, 1).setDescricao("Desconto de 500 na loja");
+
+        String padrao = LancamentoFiltro.builder().descricao("50% na_").build().getPadraoDescricao();
+        List<LancamentoDTO> encontrados = repository.buscar(usuario.getId(), null, null, null, null, padrao);
+
+        assertThat(encontrados).extracting(LancamentoDTO::getId).containsExactly(desconto.getId());
+    }
+
+    @Test
+    public void deveInserirLancamentosEmLote() {
+        List<Lancamento> lote = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            lote.add(criarLancamento());
+        }
+        long antes = repository.count();
+
+        repository.inserirEmLote(lote);
+
+        assertThat(lote).extracting(Lancamento::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(repository.count()).isEqualTo(antes + 120);
+    }
+
+    @Test
+    public void deveSomarOsValoresEfetivadosEmCentavos() {
+        Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+        Lancamento salario = criarEPersistirLancamento(usuario, 2019, 1);
+        salario.setValor(Dinheiro.parse("100.10"));
+        salario.setStatus(StatusLancamento.EFETIVADO);
+        Lancamento mercado = criarEPersistirLancamento(usuario, 2019, 1);
+        mercado.setValor(Dinheiro.parse("30.05"));
+        mercado.setTipo(TipoLancamento.DESPESA);
+        mercado.setStatus(StatusLancamento.EFETIVADO);
+        criarEPersistirLancamento(usuario, 2019, 1);
+        entityManager.flush();
+
+        Long receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(
+                usuario.getId(), TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+        // a consulta agrega todos os usuários do banco
+        List<Object[]> saldos = repository.obterSaldosPorUsuario(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO)
+                .stream()
+                .filter(saldo -> usuario.getId().equals(saldo[0]))
+                .collect(Collectors.toList());
+
+        assertThat(receitas).isEqualTo(10010l);
+        assertThat(saldos).hasSize(1);
+        assertThat(saldos.get(0)).containsExactly(usuario.getId(), 7005l);
+    }
+
     public static Lancamento criarLancamento() {
         return Lancamento.builder()
                 .ano(2019)
                 .mes(1)
                 .descricao("lancamento teste")
-                .valor(BigDecimal.valueOf(10))
+                .valor(Dinheiro.parse("10"))
                 .tipo(TipoLancamento.RECEITA)
                 .status(StatusLancamento.PENDENTE)
                 .dataCadastro(LocalDate.now())
@@ -93,4 +203,13 @@ public class LancamentoRepositoryTest {
         entityManager.persist(lancamento);
         return lancamento;
     }
+
+    private Lancamento criarEPersistirLancamento(Usuario usuario, int ano, int mes) {
+        Lancamento lancamento = criarLancamento();
+        lancamento.setUsuario(usuario);
+        lancamento.setAno(ano);
+        lancamento.setMes(mes);
+        entityManager.persist(lancamento);
+        return lancamento;
+    }
 }
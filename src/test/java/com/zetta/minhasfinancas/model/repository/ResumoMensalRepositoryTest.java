@@ -0,0 +1,71 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.ResumoMensal;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ResumoMensalRepositoryTest {
+
+    @Autowired
+    ResumoMensalRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    public void deveSomarADiferencaNaLinhaDoMes() {
+        ResumoMensalId id = new ResumoMensalId(1l, 2019, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+        entityManager.persist(new ResumoMensal(id, 2l, Dinheiro.parse("100")));
+        entityManager.flush();
+
+        int atualizados = repository.somar(id, 1, Dinheiro.parse("50"));
+        entityManager.clear();
+
+        assertThat(atualizados).isEqualTo(1);
+        ResumoMensal resumo = entityManager.find(ResumoMensal.class, id);
+        assertThat(resumo.getQuantidade()).isEqualTo(3l);
+        assertThat(resumo.getTotal()).isEqualTo(Dinheiro.parse("150"));
+    }
+
+    @Test
+    public void devePreencherOResumoAPartirDosLancamentos() {
+        Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+        for (int mes : new int[] { 1, 1, 2 }) {
+            Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setMes(mes);
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+
+        repository.inserirAPartirDosLancamentos(usuario.getId());
+        List<ResumoMensal> resumo = repository.buscarPorPeriodo(usuario.getId(), 2019, 2019);
+
+        assertThat(resumo).hasSize(2);
+        assertThat(resumo.get(0).getId().getMes()).isEqualTo(1);
+        assertThat(resumo.get(0).getQuantidade()).isEqualTo(2l);
+        assertThat(resumo.get(0).getTotal()).isEqualTo(Dinheiro.parse("20"));
+        assertThat(resumo.get(1).getId().getMes()).isEqualTo(2);
+        assertThat(resumo.get(1).getQuantidade()).isEqualTo(1l);
+    }
+}
@@ -0,0 +1,64 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.SaldoUsuario;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class SaldoUsuarioRepositoryTest {
+
+    @Autowired
+    SaldoUsuarioRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    public void deveSomarADiferencaAoSaldo() {
+        Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+        entityManager.persist(new SaldoUsuario(idUsuario, Dinheiro.parse("100")));
+        entityManager.flush();
+
+        int atualizados = repository.somarAoSaldo(idUsuario, Dinheiro.parse("-30"));
+        entityManager.clear();
+
+        assertThat(atualizados).isEqualTo(1);
+        assertThat(entityManager.find(SaldoUsuario.class, idUsuario).getSaldo()).isEqualTo(Dinheiro.parse("70"));
+    }
+
+    @Test
+    public void naoDeveAtualizarQuandoOUsuarioNaoTemSaldo() {
+        Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+
+        int atualizados = repository.somarAoSaldo(idUsuario, Dinheiro.parse("10"));
+
+        assertThat(atualizados).isEqualTo(0);
+    }
+
+    @Test
+    public void deveInserirOSaldoSoQuandoOUsuarioAindaNaoTem() {
+        Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+
+        int primeiro = repository.inserirSeAusente(idUsuario, Dinheiro.parse("100"));
+        int segundo = repository.inserirSeAusente(idUsuario, Dinheiro.parse("999"));
+        entityManager.clear();
+
+        assertThat(primeiro).isEqualTo(1);
+        assertThat(segundo).isEqualTo(0);
+        SaldoUsuario saldo = entityManager.find(SaldoUsuario.class, idUsuario);
+        assertThat(saldo.getSaldo()).isEqualTo(Dinheiro.parse("100"));
+        assertThat(saldo.getVersao()).isEqualTo(1l);
+    }
+}
@@ -0,0 +1,68 @@
+package com.zetta.minhasfinancas.model.repository;
+
+import com.zetta.minhasfinancas.config.ContadorStatements;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem @Transactional: cada chamada ao repositório abre a sua sessão, então
+ * o que evita a ida ao banco é o cache de segundo nível e não a sessão.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class UsuarioRepositoryCacheTest {
+
+    @Autowired
+    UsuarioRepository repository;
+
+    @Autowired
+    ContadorStatements contador;
+
+    Usuario usuario;
+
+    @Before
+    public void setUp() {
+        Usuario novo = UsuarioRepositoryTest.criarUsuario();
+        novo.setEmail("cache@email.com");
+        usuario = repository.save(novo);
+    }
+
+    @After
+    public void tearDown() {
+        repository.delete(usuario);
+    }
+
+    @Test
+    public void deveBuscarPorEmailSemIrAoBancoDepoisDaPrimeiraVez() {
+        repository.findByEmail(usuario.getEmail());
+
+        contador.iniciar();
+        boolean existe = repository.existsByEmail(usuario.getEmail());
+        Usuario encontrado = repository.findByEmail(usuario.getEmail()).get();
+        int statements = contador.finalizar();
+
+        assertThat(existe).isTrue();
+        assertThat(encontrado.getId()).isEqualTo(usuario.getId());
+        assertThat(statements).isZero();
+    }
+
+    @Test
+    public void deveBuscarPorIdPeloCache() {
+        repository.findById(usuario.getId());
+
+        contador.iniciar();
+        repository.findById(usuario.getId());
+
+        assertThat(contador.finalizar()).isZero();
+    }
+}
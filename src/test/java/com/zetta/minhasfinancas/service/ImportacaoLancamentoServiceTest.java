@@ -0,0 +1,99 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.zetta.minhasfinancas.config.ShardingConfiguration;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.service.impl.ImportacaoLancamentoServiceImpl;
+import com.zetta.minhasfinancas.service.impl.LancamentoServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {
+        ImportacaoLancamentoServiceImpl.class, LancamentoServiceImpl.class, ShardingConfiguration.class })
+public class ImportacaoLancamentoServiceTest {
+
+    @Autowired
+    ImportacaoLancamentoService service;
+
+    @MockBean
+    LancamentoRepository repository;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @MockBean
+    SaldoUsuarioService saldoUsuarioService;
+
+    @MockBean
+    ResumoMensalService resumoMensalService;
+
+    @MockBean
+    LivroCaixaService livroCaixaService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @Captor
+    ArgumentCaptor<List<Lancamento>> gravados;
+
+    @Test
+    public void deveImportarOsValidosEReportarOsInvalidos() {
+        Usuario usuario = Usuario.builder().id(1l).build();
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(usuario));
+
+        List<LancamentoDTO> lote = Arrays.asList(
+                lancamento("Salário", Dinheiro.parse("5000"), "RECEITA"),
+                lancamento("Sem valor", null, "DESPESA"),
+                lancamento("Tipo errado", Dinheiro.parse("10"), "TRANSFERENCIA"),
+                lancamento("Mercado", Dinheiro.parse("300"), "despesa"));
+
+        ResultadoImportacaoDTO resultado = service.importar(1l, lote);
+
+        assertThat(resultado.getImportados()).isEqualTo(2);
+        assertThat(resultado.getErros()).extracting("linha").containsExactly(2, 3);
+        assertThat(resultado.getErros().get(0).getMensagem()).isEqualTo("Informe um Valor válido.");
+
+        Mockito.verify(repository).inserirEmLote(gravados.capture());
+        assertThat(gravados.getValue()).extracting(Lancamento::getDescricao).containsExactly("Salário", "Mercado");
+        assertThat(gravados.getValue()).extracting(Lancamento::getStatus).containsOnly(StatusLancamento.PENDENTE);
+        assertThat(gravados.getValue()).extracting(Lancamento::getUsuario).containsOnly(usuario);
+        Mockito.verify(usuarioService, Mockito.times(1)).obterPorId(1l);
+    }
+
+    @Test
+    public void naoDeveImportarParaUmUsuarioInexistente() {
+        Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.empty());
+
+        Throwable erro = catchThrowable(() -> service.importar(1l, Arrays.asList(new LancamentoDTO())));
+
+        assertThat(erro).isInstanceOf(RegraNegocioException.class);
+        Mockito.verify(repository, Mockito.never()).inserirEmLote(Mockito.anyList());
+    }
+
+    private static LancamentoDTO lancamento(String descricao, Dinheiro valor, String tipo) {
+        return LancamentoDTO.builder().descricao(descricao).mes(3).ano(2022).valor(valor).tipo(tipo).build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.zetta.minhasfinancas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.zetta.minhasfinancas.config.CacheConfiguration;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.service.impl.JwtServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JwtServiceTest {
+
+    Cache<String, DadosToken> cache;
+    JwtServiceImpl service;
+
+    @Before
+    public void setUp() {
+        cache = new CacheConfiguration().cacheTokens(100);
+        service = new JwtServiceImpl(cache);
+        ReflectionTestUtils.setField(service, "expiration", "30");
+        ReflectionTestUtils.setField(service, "signatureKey", "Y2hhdmUtZGUtdGVzdGU=");
+    }
+
+    @Test
+    public void deveValidarOTokenEGuardarNoCache() {
+        String token = service.gerarToken(Usuario.builder().email("usuario@email.com").nome("usuario").build());
+
+        Optional<DadosToken> primeira = service.validarToken(token);
+        Optional<DadosToken> segunda = service.validarToken(token);
+
+        assertThat(primeira).isPresent();
+        assertThat(primeira.get().getLogin()).isEqualTo("usuario@email.com");
+        assertThat(segunda.get()).isSameAs(primeira.get());
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void naoDeveValidarUmTokenAdulterado() {
+        String token = service.gerarToken(Usuario.builder().email("usuario@email.com").build());
+
+        Optional<DadosToken> dados = service.validarToken(token.substring(0, token.length() - 2) + "xx");
+
+        assertThat(dados).isEmpty();
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    public void naoDeveValidarUmTokenExpirado() {
+        ReflectionTestUtils.setField(service, "expiration", "-1");
+        String token = service.gerarToken(Usuario.builder().email("usuario@email.com").build());
+
+        assertThat(service.validarToken(token)).isEmpty();
+    }
+}
@@ -0,0 +1,181 @@
+package com.zetta.minhasfinancas.service;
+
+import com.zetta.minhasfinancas.api.dto.AtualizaStatusLoteDTO;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.config.ContadorStatements;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Quantidade de comandos SQL de cada escrita por id, contando o que sai no
+ * flush. Com as projeções já existentes o número é fixo.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@Transactional
+public class LancamentoServiceStatementsTest {
+
+    @Autowired
+    LancamentoService service;
+
+    @Autowired
+    SaldoUsuarioService saldoUsuarioService;
+
+    @Autowired
+    UsuarioRepository usuarioRepository;
+
+    @Autowired
+    ContadorStatements contador;
+
+    @Autowired
+    EntityManager entityManager;
+
+    Usuario usuario;
+    Lancamento lancamento;
+
+    @Before
+    public void setUp() {
+        usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+        lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setUsuario(usuario);
+        lancamento = service.salvar(lancamento);
+        saldoUsuarioService.reconstruirSaldo(usuario.getId());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void deveAtualizarOStatusComUmSelectEUmUpdate() {
+        int statements = contar(() -> service.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO));
+
+        // estado gravado, update do status, saldo, resumo do status antigo,
+        // resumo do status novo (0 linhas) e o insert dessa linha do resumo
+        assertThat(statements).isEqualTo(6);
+        assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.parse("10"));
+    }
+
+    @Test
+    public void deveAtualizarReaproveitandoAEntidadeCarregada() {
+        service.atualizarStatus(lancamento.getId(), usuario.getId(), StatusLancamento.EFETIVADO);
+        entityManager.flush();
+        entityManager.clear();
+
+        LancamentoDTO dados = LancamentoDTO.builder()
+                .descricao("alterado").mes(1).ano(2019).valor(Dinheiro.parse("25"))
+                .tipo(TipoLancamento.RECEITA.name()).usuario(usuario.getId()).build();
+        int statements = contar(() -> service.atualizar(lancamento.getId(), usuario.getId(), dados));
+
+        // select do lançamento, saldo, resumo do mês e o update do lançamento
+        assertThat(statements).isEqualTo(4);
+        assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.parse("25"));
+    }
+
+    @Test
+    public void deveDeletarComUmSelectEUmDelete() {
+        int statements = contar(() -> service.deletar(lancamento.getId(), usuario.getId()));
+
+        // estado gravado, delete, saldo (só a versão: pendente não altera o
+        // valor) e resumo
+        assertThat(statements).isEqualTo(4);
+        assertThat(service.obterPorId(lancamento.getId())).isEmpty();
+    }
+
+    @Test
+    public void deveAvancarAVersaoMesmoSemMudarOSaldo() {
+        long versao = service.obterVersaoPorUsuario(usuario.getId());
+
+        LancamentoDTO dados = LancamentoDTO.builder()
+                .descricao("só a descrição").mes(1).ano(2019).valor(Dinheiro.parse("10"))
+                .tipo(TipoLancamento.RECEITA.name()).usuario(usuario.getId()).build();
+        service.atualizar(lancamento.getId(), usuario.getId(), dados);
+        entityManager.flush();
+
+        assertThat(service.obterVersaoPorUsuario(usuario.getId())).isEqualTo(versao + 1);
+    }
+
+    @Test
+    public void deveEfetivarVariosLancamentosComUmUnicoUpdate() {
+        for (int i = 0; i < 4; i++) {
+            Lancamento outro = LancamentoRepositoryTest.criarLancamento();
+            outro.setUsuario(usuario);
+            service.salvar(outro);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        AtualizaStatusLoteDTO dados = AtualizaStatusLoteDTO.builder()
+                .status(StatusLancamento.EFETIVADO.name()).ano(2019).mes(1).build();
+        int[] atualizados = new int[1];
+        int statements = contar(() -> atualizados[0] = service.atualizarStatus(usuario.getId(), dados));
+
+        // select ... for update, o UPDATE em lote, saldo, resumo do status
+        // antigo, resumo do novo (0 linhas) e o insert dessa linha, não
+        // importa quantos lançamentos mudaram
+        assertThat(atualizados[0]).isEqualTo(5);
+        assertThat(statements).isEqualTo(6);
+        assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.parse("50"));
+        assertThat(service.obterResumoMensal(usuario.getId(), 2019, 2019))
+                .extracting(ResumoMensalDTO::getStatus, ResumoMensalDTO::getQuantidade)
+                .containsExactly(tuple(StatusLancamento.EFETIVADO.name(), 5l));
+    }
+
+    @Test
+    public void deveIgnorarNaAtualizacaoEmLoteOsIdsDeOutroUsuarioEOsQueJaEstaoNoStatus() {
+        Usuario outro = UsuarioRepositoryTest.criarUsuario();
+        outro.setEmail("outro@email.com");
+        outro = usuarioRepository.save(outro);
+        Lancamento doOutro = LancamentoRepositoryTest.criarLancamento();
+        doOutro.setUsuario(outro);
+        doOutro = service.salvar(doOutro);
+
+        AtualizaStatusLoteDTO dados = AtualizaStatusLoteDTO.builder()
+                .status(StatusLancamento.PENDENTE.name())
+                .ids(Arrays.asList(lancamento.getId(), doOutro.getId())).build();
+
+        assertThat(service.atualizarStatus(usuario.getId(), dados)).isZero();
+    }
+
+    @Test
+    public void naoDeveAlterarLancamentoDeOutroUsuario() {
+        Usuario outro = UsuarioRepositoryTest.criarUsuario();
+        outro.setEmail("outro@email.com");
+        outro = usuarioRepository.save(outro);
+        Long idOutro = outro.getId();
+
+        Throwable erro = catchThrowable(() -> service.deletar(lancamento.getId(), idOutro));
+
+        assertThat(erro).isInstanceOf(RegraNegocioException.class);
+        assertThat(service.obterPorId(lancamento.getId())).isPresent();
+    }
+
+    private int contar(Runnable escrita) {
+        contador.iniciar();
+        escrita.run();
+        entityManager.flush();
+        return contador.finalizar();
+    }
+}
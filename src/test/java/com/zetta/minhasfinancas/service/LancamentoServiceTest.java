@@ -1,9 +1,16 @@
 package com.zetta.minhasfinancas.service;
 
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.PaginaLancamentoDTO;
+import com.zetta.minhasfinancas.config.ShardingConfiguration;
 import com.zetta.minhasfinancas.exception.RegraNegocioException;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
 import com.zetta.minhasfinancas.model.entity.Lancamento;
+import com.zetta.minhasfinancas.model.entity.ResumoMensalId;
 import com.zetta.minhasfinancas.model.entity.Usuario;
 import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.projection.EstadoLancamento;
 import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
 import com.zetta.minhasfinancas.model.repository.LancamentoRepositoryTest;
 import com.zetta.minhasfinancas.service.impl.LancamentoServiceImpl;
@@ -15,17 +22,18 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
+@Import(ShardingConfiguration.class)
 public class LancamentoServiceTest {
 
     @SpyBean
@@ -34,6 +42,15 @@ public class LancamentoServiceTest {
     @MockBean
     LancamentoRepository repository;
 
+    @MockBean
+    SaldoUsuarioService saldoUsuarioService;
+
+    @MockBean
+    ResumoMensalService resumoMensalService;
+
+    @MockBean
+    LivroCaixaService livroCaixaService;
+
     /**
      * Mockito.doNothing: O que quero testar é o salvar lançamento.
      * Porem, aqui o salvar lançamento:
@@ -70,55 +87,57 @@ public class LancamentoServiceTest {
 
     @Test
     public void deveAtualizarUmLancamento() {
-        Lancamento salvo = LancamentoRepositoryTest.criarLancamento();
-        salvo.setId(1l);
-        salvo.setStatus(StatusLancamento.PENDENTE);
-
-        Mockito.doNothing().when(service).validar(salvo);
-
-        Mockito.when(repository.save(salvo)).thenReturn(salvo);
+        Lancamento salvo = lancamentoDoUsuario(2l);
+        LancamentoDTO dados = LancamentoDTO.builder()
+                .descricao("nova").ano(2019).mes(1).valor(Dinheiro.parse("10")).tipo("RECEITA").build();
+        Mockito.when(repository.travar(1l, 2l)).thenReturn(Optional.of(salvo));
 
-        Lancamento lancamento = service.atualizar(salvo);
+        Lancamento lancamento = service.atualizar(1l, 2l, dados);
 
-        Mockito.verify(repository, Mockito.times(1)).save(salvo);
+        assertThat(lancamento.getDescricao()).isEqualTo("nova");
+        Mockito.verify(service).validar(salvo);
     }
 
     @Test
-    public void deveLancarErroAoTentarAtualizarUmLancamentoQueAindaNaoFoiSalvo() {
-        Lancamento salvar = LancamentoRepositoryTest.criarLancamento();
+    public void deveLancarErroAoTentarAtualizarUmLancamentoQueNaoExiste() {
+        Mockito.when(repository.travar(1l, 2l)).thenReturn(Optional.empty());
 
-        catchThrowableOfType(() -> service.atualizar(salvar), NullPointerException.class);
-        Mockito.verify(repository, Mockito.never()).save(salvar);
+        Throwable erro = catchThrowable(() -> service.atualizar(1l, 2l, new LancamentoDTO()));
+
+        assertThat(erro).isInstanceOf(RegraNegocioException.class);
+        Mockito.verify(saldoUsuarioService, Mockito.never()).aplicarDiferenca(Mockito.any(), Mockito.any());
     }
 
     @Test
     public void deveDeletarUmLancamento() {
-        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
-        lancamento.setId(1l);
+        EstadoLancamento anterior = estado(2l, Dinheiro.parse("10"), TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+        Mockito.when(repository.obterEstadoGravado(1l, 2l)).thenReturn(Optional.of(anterior));
 
-        service.deletar(lancamento);
+        service.deletar(1l, 2l);
 
-        Mockito.verify(repository).delete(lancamento);
+        Mockito.verify(repository).remover(1l, 2l);
     }
 
     @Test
-    public void deveLancarErroAoDeletarUmLancamento() {
-        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+    public void deveLancarErroAoDeletarUmLancamentoQueNaoExiste() {
+        Mockito.when(repository.obterEstadoGravado(1l, 2l)).thenReturn(Optional.empty());
 
-        Assertions.catchThrowableOfType( () -> service.deletar(lancamento), NullPointerException.class);
+        Throwable erro = catchThrowable(() -> service.deletar(1l, 2l));
 
-        Mockito.verify( repository, Mockito.never() ).delete(lancamento);
+        assertThat(erro).isInstanceOf(RegraNegocioException.class);
+        Mockito.verify(repository, Mockito.never()).remover(Mockito.any(), Mockito.any());
     }
 
     @Test
     public void deveFiltrarLancamentos() {
-        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
-        lancamento.setId(1l);
+        LancamentoDTO lancamento = LancamentoDTO.builder().id(1l).usuario(2l).ano(2019).tipo("RECEITA").build();
+        LancamentoFiltro filtro = LancamentoFiltro.builder()
+                .idUsuario(2l).ano(2019).tipo(TipoLancamento.RECEITA).descricao(" Teste ").build();
 
-        List<Lancamento> lista = Arrays.asList(lancamento);
-        Mockito.when( repository.findAll(Mockito.any(Example.class)) ).thenReturn(lista);
+        List<LancamentoDTO> lista = Arrays.asList(lancamento);
+        Mockito.when( repository.buscar(2l, 2019, null, TipoLancamento.RECEITA, null, "%teste%") ).thenReturn(lista);
 
-        List<Lancamento> result = service.buscar(lancamento);
+        List<LancamentoDTO> result = service.buscar(filtro);
 
         assertThat(result).isNotEmpty()
                 .hasSize(1)
@@ -127,19 +146,12 @@ public class LancamentoServiceTest {
 
     @Test
     public void deveAtualizarOStatusDeUmLancamento() {
-        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
-        lancamento.setId(1l);
-        lancamento.setStatus(StatusLancamento.PENDENTE);
+        EstadoLancamento anterior = estado(2l, Dinheiro.parse("10"), TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+        Mockito.when(repository.obterEstadoGravado(1l, 2l)).thenReturn(Optional.of(anterior));
 
-        StatusLancamento novo = StatusLancamento.EFETIVADO;
-
-        Mockito.doReturn(lancamento).when(service).atualizar(lancamento);
-
-        service.atualizarStatus(lancamento, novo);
-
-        assertThat(lancamento.getStatus()).isEqualTo(novo);
-        Mockito.verify(service).atualizar(lancamento);
+        service.atualizarStatus(1l, 2l, StatusLancamento.EFETIVADO);
 
+        Mockito.verify(repository).atualizarStatus(1l, 2l, StatusLancamento.EFETIVADO);
     }
 
     @Test
@@ -194,10 +206,104 @@ public class LancamentoServiceTest {
         erro = catchThrowable(() -> service.validar(lancamento));
         Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Valor válido.");
 
-        lancamento.setValor(BigDecimal.valueOf(90));
+        lancamento.setValor(Dinheiro.parse("90"));
 
         erro = catchThrowable(() -> service.validar(lancamento));
         Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um tipo de Lançamento.");
 
     }
+
+    @Test
+    public void deveSomarAoSaldoAoEfetivarUmaReceita() {
+        EstadoLancamento anterior = estado(2l, Dinheiro.parse("10"), TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+        Mockito.when(repository.obterEstadoGravado(1l, 2l)).thenReturn(Optional.of(anterior));
+
+        service.atualizarStatus(1l, 2l, StatusLancamento.EFETIVADO);
+
+        Mockito.verify(saldoUsuarioService).aplicarDiferenca(2l, Dinheiro.parse("10"));
+    }
+
+    @Test
+    public void deveEstornarOSaldoAoDeletarUmaDespesaEfetivada() {
+        EstadoLancamento anterior = estado(2l, Dinheiro.parse("30"), TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+        Mockito.when(repository.obterEstadoGravado(1l, 2l)).thenReturn(Optional.of(anterior));
+
+        service.deletar(1l, 2l);
+
+        Mockito.verify(repository).remover(1l, 2l);
+        Mockito.verify(saldoUsuarioService).aplicarDiferenca(2l, Dinheiro.parse("30"));
+    }
+
+    @Test
+    public void deveMoverOLancamentoEntreMesesNoResumo() {
+        Lancamento lancamento = lancamentoDoUsuario(2l);
+        lancamento.setValor(Dinheiro.parse("30"));
+        LancamentoDTO dados = LancamentoDTO.builder()
+                .descricao("lancamento teste").ano(2019).mes(2).valor(Dinheiro.parse("10")).build();
+        Mockito.when(repository.travar(1l, 2l)).thenReturn(Optional.of(lancamento));
+
+        service.atualizar(1l, 2l, dados);
+
+        Mockito.verify(resumoMensalService).aplicarDiferenca(
+                new ResumoMensalId(2l, 2019, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE), -1, Dinheiro.parse("-30"));
+        Mockito.verify(resumoMensalService).aplicarDiferenca(
+                new ResumoMensalId(2l, 2019, 2, TipoLancamento.RECEITA, StatusLancamento.PENDENTE), 1, Dinheiro.parse("10"));
+    }
+
+    @Test
+    public void deveObterOSaldoDaProjecao() {
+        Mockito.when(saldoUsuarioService.obterSaldo(2l)).thenReturn(Dinheiro.parse("150"));
+
+        Dinheiro saldo = service.obterSaldoPorUsuario(2l);
+
+        assertThat(saldo).isEqualTo(Dinheiro.parse("150"));
+        Mockito.verify(repository, Mockito.never())
+                .obterSaldoPorTipoLancamentoEUsuarioEStatus(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void deveDevolverOCursorDaProximaPagina() {
+        LancamentoFiltro filtro = LancamentoFiltro.builder().idUsuario(2l).build();
+        LancamentoDTO primeiro = LancamentoDTO.builder().id(5l).ano(2021).mes(3).build();
+        LancamentoDTO segundo = LancamentoDTO.builder().id(9l).ano(2021).mes(4).build();
+        Mockito.when(repository.buscarPagina(2l, null, null, null, null, "%", 0, 0, 0l, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(primeiro, segundo));
+        Mockito.when(repository.buscarPagina(2l, null, null, null, null, "%", 2021, 3, 5l, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(segundo));
+
+        PaginaLancamentoDTO pagina = service.buscarPagina(filtro, null, 1);
+        PaginaLancamentoDTO ultima = service.buscarPagina(filtro, pagina.getNext(), 1);
+
+        assertThat(pagina.getItens()).containsExactly(primeiro);
+        assertThat(pagina.getNext()).isNotNull();
+        assertThat(ultima.getItens()).containsExactly(segundo);
+        assertThat(ultima.getNext()).isNull();
+    }
+
+    @Test
+    public void deveLancarErroAoBuscarPaginaComCursorInvalido() {
+        LancamentoFiltro filtro = LancamentoFiltro.builder().idUsuario(2l).build();
+
+        Throwable erro = catchThrowable(() -> service.buscarPagina(filtro, "invalido", 10));
+
+        assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Cursor de paginação inválido.");
+    }
+
+    private static Lancamento lancamentoDoUsuario(Long idUsuario) {
+        Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+        lancamento.setId(1l);
+        lancamento.setUsuario(Usuario.builder().id(idUsuario).build());
+        return lancamento;
+    }
+
+    private static EstadoLancamento estado(Long idUsuario, Dinheiro valor, TipoLancamento tipo, StatusLancamento status) {
+        EstadoLancamento estado = Mockito.mock(EstadoLancamento.class);
+        Mockito.when(estado.getIdUsuario()).thenReturn(idUsuario);
+        Mockito.when(estado.getAno()).thenReturn(2019);
+        Mockito.when(estado.getMes()).thenReturn(1);
+        Mockito.when(estado.getValor()).thenReturn(valor);
+        Mockito.when(estado.getTipo()).thenReturn(tipo);
+        Mockito.when(estado.getStatus()).thenReturn(status);
+        return estado;
+    }
 }
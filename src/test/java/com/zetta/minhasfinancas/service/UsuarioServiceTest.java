@@ -16,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -101,6 +102,33 @@ public class UsuarioServiceTest {
                 .hasMessage("Senha inválida.");
     }
 
+    @Test
+    public void deveRefazerOHashDaSenhaGravadoComForcaMenor() {
+        String senha = "senha";
+        Usuario usuario = Usuario.builder().id(2l).email("email@email.com")
+                .senha(new BCryptPasswordEncoder(4).encode(senha)).build();
+        Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+        Mockito.when(repository.save(Mockito.any(Usuario.class))).then(invocation -> invocation.getArgument(0));
+
+        Usuario result = service.autenticar("email@email.com", senha);
+
+        Assertions.assertThat(result.getSenha()).startsWith("$2a$10$");
+        Assertions.assertThat(new BCryptPasswordEncoder().matches(senha, result.getSenha())).isTrue();
+        Mockito.verify(repository).save(usuario);
+    }
+
+    @Test
+    public void naoDeveRegravarASenhaQuandoAForcaForAAtual() {
+        String senha = "senha";
+        Usuario usuario = Usuario.builder().id(2l).email("email@email.com")
+                .senha(new BCryptPasswordEncoder(10).encode(senha)).build();
+        Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+
+        service.autenticar("email@email.com", senha);
+
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Usuario.class));
+    }
+
     //Espera que não seja lançada exceção
     @Test(expected = Test.None.class)
     public void deveValidarEmail() {
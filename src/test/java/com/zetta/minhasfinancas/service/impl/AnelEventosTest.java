@@ -0,0 +1,93 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnelEventosTest {
+
+    @Test
+    public void deveArredondarACapacidadeParaPotenciaDeDois() {
+        assertThat(new AnelEventos<Integer>(1).getCapacidade()).isEqualTo(1);
+        assertThat(new AnelEventos<Integer>(5).getCapacidade()).isEqualTo(8);
+        assertThat(new AnelEventos<Integer>(8).getCapacidade()).isEqualTo(8);
+    }
+
+    @Test
+    public void deveRecusarQuandoCheioEAceitarDepoisDeDrenar() {
+        AnelEventos<Integer> anel = new AnelEventos<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(anel.oferecer(i)).isTrue();
+        }
+        assertThat(anel.oferecer(4)).isFalse();
+
+        List<Integer> drenados = new ArrayList<>();
+        assertThat(anel.drenar(drenados::add, 3)).isEqualTo(3);
+        assertThat(drenados).containsExactly(0, 1, 2);
+
+        assertThat(anel.oferecer(4)).isTrue();
+        assertThat(anel.oferecer(5)).isTrue();
+        assertThat(anel.oferecer(6)).isTrue();
+        assertThat(anel.oferecer(7)).isFalse();
+        assertThat(anel.tamanho()).isEqualTo(4);
+
+        drenados.clear();
+        assertThat(anel.drenar(drenados::add, 10)).isEqualTo(4);
+        assertThat(drenados).containsExactly(3, 4, 5, 6);
+        assertThat(anel.tamanho()).isZero();
+    }
+
+    @Test
+    public void deveEntregarTudoComVariosProdutores() throws Exception {
+        int produtores = 4;
+        int porProdutor = 50_000;
+        AnelEventos<Integer> anel = new AnelEventos<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(produtores);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int p = 0; p < produtores; p++) {
+            int produtor = p;
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < porProdutor; i++) {
+                    while (!anel.oferecer(produtor * porProdutor + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        // a ordem de cada produtor é mantida
+        int[] ultimo = new int[produtores];
+        Arrays.fill(ultimo, -1);
+        int[] recebidos = {0};
+        largada.countDown();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (recebidos[0] < produtores * porProdutor && System.nanoTime() < limite) {
+            anel.drenar(item -> {
+                int produtor = item / porProdutor;
+                assertThat(item % porProdutor).isGreaterThan(ultimo[produtor]);
+                ultimo[produtor] = item % porProdutor;
+                recebidos[0]++;
+            }, 256);
+        }
+        executor.shutdown();
+
+        assertThat(recebidos[0]).isEqualTo(produtores * porProdutor);
+        for (int produtor = 0; produtor < produtores; produtor++) {
+            assertThat(ultimo[produtor]).isEqualTo(porProdutor - 1);
+        }
+    }
+}
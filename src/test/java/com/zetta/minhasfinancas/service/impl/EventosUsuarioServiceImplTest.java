@@ -0,0 +1,80 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.service.impl.EventosUsuarioServiceImpl.Evento;
+import com.zetta.minhasfinancas.service.impl.EventosUsuarioServiceImpl.Inscricao;
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.SaldoUsuarioService;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventosUsuarioServiceImplTest {
+
+    @Test
+    public void deveManterSoOEventoMaisRecenteDeCadaLancamento() {
+        Inscricao inscricao = new Inscricao(1l, new SseEmitter(), 10);
+        Evento primeiro = new Evento("lancamento", "1");
+        Evento outro = new Evento("lancamento", "2");
+        Evento ultimo = new Evento("lancamento", "3");
+
+        inscricao.oferecer("lancamento:1", primeiro);
+        inscricao.oferecer("lancamento:2", outro);
+        inscricao.oferecer("lancamento:1", ultimo);
+
+        assertThat(inscricao.drenar()).containsExactly(outro, ultimo);
+        assertThat(inscricao.temPendentes()).isFalse();
+    }
+
+    @Test
+    public void deveDescartarOsMaisAntigosEPedirResincronizacaoQuandoOBufferEnche() {
+        Inscricao inscricao = new Inscricao(1l, new SseEmitter(), 2);
+        Evento segundo = new Evento("lancamento", "2");
+        Evento terceiro = new Evento("lancamento", "3");
+
+        inscricao.oferecer("lancamento:1", new Evento("lancamento", "1"));
+        inscricao.oferecer("lancamento:2", segundo);
+        inscricao.oferecer("lancamento:3", terceiro);
+
+        List<Evento> eventos = inscricao.drenar();
+        assertThat(eventos).hasSize(3);
+        assertThat(eventos.get(0).paraSse().build().iterator().next().getData().toString())
+                .contains("event:" + EventosUsuarioServiceImpl.EVENTO_RESINCRONIZAR);
+        assertThat(eventos.subList(1, 3)).containsExactly(segundo, terceiro);
+    }
+
+    @Test
+    public void deveLerOSaldoUmaVezPorUsuarioAoPublicarOsEventosDaTransacao() {
+        SaldoUsuarioService saldoService = Mockito.mock(SaldoUsuarioService.class);
+        EventosUsuarioServiceImpl service = new EventosUsuarioServiceImpl(saldoService, Runnable::run);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "capacidadeBuffer", 64);
+        service.inscrever(1l);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (long id = 1; id <= 3; id++) {
+                LancamentoDTO lancamento = LancamentoDTO.builder().id(id).usuario(1l).build();
+                service.aoAlterarLancamento(new LancamentoAlteradoEvent(1l, lancamento, false, 0));
+            }
+            Mockito.verifyNoInteractions(saldoService);
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Mockito.verify(saldoService, Mockito.times(1)).obterSaldo(1l);
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+}
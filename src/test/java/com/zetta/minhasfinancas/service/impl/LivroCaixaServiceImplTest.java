@@ -0,0 +1,149 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.api.dto.LancamentoDTO;
+import com.zetta.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.zetta.minhasfinancas.model.entity.Dinheiro;
+import com.zetta.minhasfinancas.model.enums.StatusLancamento;
+import com.zetta.minhasfinancas.model.enums.TipoLancamento;
+import com.zetta.minhasfinancas.model.repository.LancamentoRepository;
+import com.zetta.minhasfinancas.service.LancamentoAlteradoEvent;
+import com.zetta.minhasfinancas.service.LancamentosImportadosEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class LivroCaixaServiceImplTest {
+
+    LancamentoRepository repository;
+    LivroCaixaServiceImpl service;
+
+    @Before
+    public void setUp() {
+        repository = Mockito.mock(LancamentoRepository.class);
+        Mockito.when(repository.percorrerParaLivroCaixa(Mockito.anyLong())).thenAnswer(invocacao -> Stream.empty());
+        service = new LivroCaixaServiceImpl(repository, Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "memoriaMaxima", DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    public void deveCarregarUmaVezECalcularOSaldoSoComOsEfetivados() {
+        Mockito.when(repository.percorrerParaLivroCaixa(1l)).thenAnswer(invocacao -> Stream.of(
+                linha(1l, "100.50", 2020, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+                linha(2l, "30.25", 2020, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO),
+                linha(3l, "999", 2020, 2, TipoLancamento.RECEITA, StatusLancamento.PENDENTE)));
+
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("70.25"));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("70.25"));
+
+        Mockito.verify(repository, Mockito.times(1)).percorrerParaLivroCaixa(1l);
+    }
+
+    @Test
+    public void deveResumirPorMesTipoEStatusNaOrdemDoResumoMensal() {
+        Mockito.when(repository.percorrerParaLivroCaixa(1l)).thenAnswer(invocacao -> Stream.of(
+                linha(1l, "10", 2020, 3, TipoLancamento.RECEITA, StatusLancamento.PENDENTE),
+                linha(2l, "5", 2020, 3, TipoLancamento.RECEITA, StatusLancamento.PENDENTE),
+                linha(3l, "7", 2020, 3, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO),
+                linha(4l, "1", 2019, 12, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+                linha(5l, "1", 2021, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+                linha(6l, "2", 2020, 4, null, StatusLancamento.PENDENTE)));
+
+        assertThat(service.obterResumo(1l, 2020, 2020))
+                .extracting(ResumoMensalDTO::getAno, ResumoMensalDTO::getMes, ResumoMensalDTO::getTipo,
+                        ResumoMensalDTO::getStatus, ResumoMensalDTO::getQuantidade, ResumoMensalDTO::getTotal)
+                .containsExactly(
+                        tuple(2020, 3, "DESPESA", "EFETIVADO", 1l, Dinheiro.parse("7.00")),
+                        tuple(2020, 3, "RECEITA", "PENDENTE", 2l, Dinheiro.parse("15.00")));
+        assertThat(service.obterResumo(1l, 1900, 1901)).isEmpty();
+    }
+
+    @Test
+    public void deveAcompanharAsEscritasConfirmadasDeUsuariosCarregados() {
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("0"));
+
+        service.aoAlterarLancamento(evento(1l, 10l, "40", StatusLancamento.EFETIVADO, false, 0));
+        service.aoAlterarLancamento(evento(1l, 11l, "15", StatusLancamento.EFETIVADO, false, 0));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("55"));
+
+        service.aoAlterarLancamento(evento(1l, 10l, "40", StatusLancamento.CANCELADO, false, 1));
+        service.aoAlterarLancamento(evento(1l, 11l, "15", StatusLancamento.EFETIVADO, true, 1));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("0"));
+        Mockito.verify(repository, Mockito.times(1)).percorrerParaLivroCaixa(1l);
+    }
+
+    @Test
+    public void deveIgnorarEventosMaisAntigosQueOEstadoDoLivro() {
+        Mockito.when(repository.percorrerParaLivroCaixa(1l)).thenAnswer(invocacao -> Stream.<Object[]>of(
+                new Object[] { 10l, Dinheiro.parse("40"), 2020, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, 3l }));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("40"));
+
+        // confirmados antes da carga, mas entregues depois dela
+        service.aoAlterarLancamento(evento(1l, 10l, "40", StatusLancamento.PENDENTE, false, 2));
+        service.aoAlterarLancamento(evento(1l, 10l, "40", StatusLancamento.EFETIVADO, false, 3));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("40"));
+
+        service.aoAlterarLancamento(evento(1l, 11l, "15", StatusLancamento.EFETIVADO, true, 5));
+        service.aoAlterarLancamento(evento(1l, 11l, "15", StatusLancamento.EFETIVADO, false, 4));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("40"));
+
+        service.aoAlterarLancamento(evento(1l, 10l, "40", StatusLancamento.CANCELADO, false, 4));
+        assertThat(service.obterSaldo(1l)).isEqualTo(Dinheiro.parse("0"));
+    }
+
+    @Test
+    public void naoDeveCarregarUsuarioSoPorCausaDeUmaEscrita() {
+        service.aoAlterarLancamento(evento(2l, 10l, "40", StatusLancamento.EFETIVADO, false, 0));
+
+        assertThat(service.contarUsuarios()).isZero();
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void deveDescartarOUsuarioDepoisDeUmaImportacao() {
+        service.obterSaldo(1l);
+
+        service.aoImportarLancamentos(new LancamentosImportadosEvent(1l, Collections.emptyList()));
+        service.obterSaldo(1l);
+
+        Mockito.verify(repository, Mockito.times(2)).percorrerParaLivroCaixa(1l);
+    }
+
+    @Test
+    public void deveTirarDaMemoriaOsUsadosHaMaisTempoQuandoPassaDoLimite() {
+        long porLivro = LivroCaixa.BYTES_FIXOS + 16l * LivroCaixa.BYTES_POR_LANCAMENTO;
+        ReflectionTestUtils.setField(service, "memoriaMaxima", DataSize.ofBytes(2 * porLivro));
+
+        service.obterSaldo(1l);
+        service.obterSaldo(2l);
+        service.obterSaldo(1l);
+        service.obterSaldo(3l);
+
+        assertThat(service.contarUsuarios()).isEqualTo(2);
+        assertThat(service.somarBytes()).isEqualTo(2 * porLivro);
+        service.obterSaldo(1l);
+        service.obterSaldo(2l);
+        Mockito.verify(repository, Mockito.times(1)).percorrerParaLivroCaixa(1l);
+        Mockito.verify(repository, Mockito.times(2)).percorrerParaLivroCaixa(2l);
+    }
+
+    private static Object[] linha(Long id, String valor, Integer ano, Integer mes,
+            TipoLancamento tipo, StatusLancamento status) {
+        return new Object[] { id, Dinheiro.parse(valor), ano, mes, tipo, status, 0l };
+    }
+
+    private static LancamentoAlteradoEvent evento(Long idUsuario, Long id, String valor,
+            StatusLancamento status, boolean removido, long versao) {
+        LancamentoDTO lancamento = new LancamentoDTO(id, "lancamento", 1, 2020, Dinheiro.parse(valor),
+                idUsuario, TipoLancamento.RECEITA, status);
+        return new LancamentoAlteradoEvent(idUsuario, lancamento, removido, versao);
+    }
+}
@@ -0,0 +1,68 @@
+package com.zetta.minhasfinancas.service.impl;
+
+import com.zetta.minhasfinancas.model.entity.Usuario;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepository;
+import com.zetta.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.zetta.minhasfinancas.service.UsuarioService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class SecurityUserDetailsServiceTest {
+
+    @Autowired
+    SecurityUserDetailsService service;
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    UsuarioRepository repository;
+
+    @Before
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(nome -> cacheManager.getCache(nome).clear());
+    }
+
+    @Test
+    public void deveBuscarOUsuarioNoBancoApenasUmaVez() {
+        Usuario usuario = UsuarioRepositoryTest.criarUsuario();
+        Mockito.when(repository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+
+        service.loadUserByUsername(usuario.getEmail());
+        service.loadUserByUsername(usuario.getEmail());
+
+        Mockito.verify(repository, Mockito.times(1)).findByEmail(usuario.getEmail());
+    }
+
+    @Test
+    public void deveInvalidarOCacheAoSalvarOUsuario() {
+        Usuario usuario = UsuarioRepositoryTest.criarUsuario();
+        Mockito.when(repository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+        Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(usuario);
+
+        service.loadUserByUsername(usuario.getEmail());
+        usuarioService.salvarUsuario(UsuarioRepositoryTest.criarUsuario());
+        String senha = service.loadUserByUsername(usuario.getEmail()).getPassword();
+
+        Mockito.verify(repository, Mockito.times(2)).findByEmail(usuario.getEmail());
+        assertThat(senha).isEqualTo(usuario.getSenha());
+    }
+}